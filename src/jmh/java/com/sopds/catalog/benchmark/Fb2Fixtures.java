@@ -0,0 +1,175 @@
+package com.sopds.catalog.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Reproducible synthetic FB2 documents: the same size, charset and seed always give the same bytes.
+ * <p>
+ * Run {@link #main} to write the whole fixture matrix to a directory, e.g. to scan it with the
+ * application or to compare runs on another machine.
+ */
+public final class Fb2Fixtures {
+
+    public static final long DEFAULT_SEED = 20240101L;
+
+    public enum Size {
+        /**
+         * Header and a few paragraphs, no images (~10 KB)
+         */
+        SMALL(20, 0, 0),
+        /**
+         * Novel-length text with a cover (~1 MB)
+         */
+        TYPICAL(2_000, 1, 64 * 1024),
+        /**
+         * Long text and many large illustrations (~20 MB)
+         */
+        HUGE(8_000, 24, 512 * 1024);
+
+        private final int paragraphs;
+        private final int images;
+        private final int imageBytes;
+
+        Size(int paragraphs, int images, int imageBytes) {
+            this.paragraphs = paragraphs;
+            this.images = images;
+            this.imageBytes = imageBytes;
+        }
+    }
+
+    private static final String[] WORDS = {
+            "книга", "библиотека", "время", "человек", "дорога", "город", "звезда", "корабль", "море",
+            "память", "ветер", "ночь", "письмо", "история", "свет", "огонь", "небо", "слово",
+            "library", "signal", "orbit", "harbor", "winter", "river", "silence", "engine"
+    };
+    private static final String[] FIRST_NAMES = {"Иван", "Анна", "Сергей", "Мария", "Аркадий", "Борис", "Ольга"};
+    private static final String[] LAST_NAMES = {"Петров", "Стругацкий", "Иванова", "Лукьяненко", "Ефремов", "Булычёв"};
+    private static final String[] GENRES = {"sf", "sf_social", "prose_classic", "detective", "adventure", "child_tale"};
+
+    private Fb2Fixtures() {
+    }
+
+    public static byte[] generate(Size size, Charset charset) {
+        return generate(size, charset, DEFAULT_SEED);
+    }
+
+    public static byte[] generate(Size size, Charset charset, long seed) {
+        Random random = new Random(seed);
+        StringBuilder xml = new StringBuilder(size.paragraphs * 400 + size.images * size.imageBytes * 4 / 3);
+
+        xml.append("<?xml version=\"1.0\" encoding=\"").append(charset.name()).append("\"?>\n");
+        xml.append("<FictionBook xmlns=\"http://www.gribuser.ru/xml/fictionbook/2.0\"")
+                .append(" xmlns:l=\"http://www.w3.org/1999/xlink\">\n");
+        xml.append("<description>\n<title-info>\n");
+        int genres = 1 + random.nextInt(3);
+        for (int i = 0; i < genres; i++) {
+            xml.append("<genre>").append(pick(random, GENRES)).append("</genre>\n");
+        }
+        int authors = 1 + random.nextInt(2);
+        for (int i = 0; i < authors; i++) {
+            xml.append("<author><first-name>").append(pick(random, FIRST_NAMES))
+                    .append("</first-name><middle-name>").append(pick(random, FIRST_NAMES)).append("ович")
+                    .append("</middle-name><last-name>").append(pick(random, LAST_NAMES))
+                    .append("</last-name></author>\n");
+        }
+        xml.append("<book-title>").append(sentence(random, 4)).append("</book-title>\n");
+        xml.append("<annotation>\n");
+        for (int i = 0; i < 3; i++) {
+            xml.append("<p>").append(sentence(random, 40)).append(" &amp; <emphasis>")
+                    .append(sentence(random, 3)).append("</emphasis></p>\n");
+        }
+        xml.append("</annotation>\n");
+        if (size.images > 0) {
+            xml.append("<coverpage><image l:href=\"#img0.jpg\"/></coverpage>\n");
+        }
+        xml.append("<date>").append(1950 + random.nextInt(70)).append("</date>\n");
+        xml.append("<lang>ru</lang>\n");
+        xml.append("<sequence name=\"").append(sentence(random, 2)).append("\" number=\"")
+                .append(1 + random.nextInt(12)).append("\"/>\n");
+        xml.append("</title-info>\n");
+        xml.append("<document-info><author><nickname>fixture</nickname></author>")
+                .append("<program-used>Fb2Fixtures</program-used><id>")
+                .append(Long.toHexString(random.nextLong())).append("</id><version>1.0</version></document-info>\n");
+        xml.append("<publish-info><publisher>").append(sentence(random, 2)).append("</publisher><year>")
+                .append(1950 + random.nextInt(70)).append("</year><isbn>978-5-")
+                .append(1000 + random.nextInt(9000)).append("-").append(1000 + random.nextInt(9000))
+                .append("-").append(random.nextInt(10)).append("</isbn></publish-info>\n");
+        xml.append("</description>\n");
+
+        xml.append("<body>\n<title><p>").append(sentence(random, 4)).append("</p></title>\n<section>\n");
+        for (int i = 0; i < size.paragraphs; i++) {
+            if (i > 0 && i % 200 == 0) {
+                xml.append("</section>\n<section><title><p>").append(sentence(random, 3)).append("</p></title>\n");
+            }
+            if (size.images > 1 && i % Math.max(1, size.paragraphs / size.images) == 0) {
+                xml.append("<image l:href=\"#img").append(1 + i / Math.max(1, size.paragraphs / size.images))
+                        .append(".jpg\"/>\n");
+            }
+            xml.append("<p>").append(sentence(random, 30 + random.nextInt(60))).append("</p>\n");
+        }
+        xml.append("</section>\n</body>\n");
+
+        Base64.Encoder base64 = Base64.getMimeEncoder();
+        for (int i = 0; i < size.images; i++) {
+            byte[] image = new byte[size.imageBytes];
+            random.nextBytes(image);
+            xml.append("<binary id=\"img").append(i).append(".jpg\" content-type=\"image/jpeg\">")
+                    .append(base64.encodeToString(image)).append("</binary>\n");
+        }
+        xml.append("</FictionBook>\n");
+
+        return xml.toString().getBytes(charset);
+    }
+
+    /**
+     * Stores the document as the only entry of a ZIP archive, the way library archives hold books.
+     */
+    public static void writeZip(Path zip, String entryName, byte[] fb2) throws IOException {
+        try (OutputStream out = Files.newOutputStream(zip);
+             ZipOutputStream zipOut = new ZipOutputStream(out)) {
+            zipOut.putNextEntry(new ZipEntry(entryName));
+            zipOut.write(fb2);
+            zipOut.closeEntry();
+        }
+    }
+
+    /**
+     * Writes every size/charset combination to the given directory (default {@code build/fb2-fixtures}).
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "build/fb2-fixtures");
+        Files.createDirectories(dir);
+        for (Size size : Size.values()) {
+            for (String charsetName : new String[]{"UTF-8", "windows-1251"}) {
+                byte[] fb2 = generate(size, Charset.forName(charsetName));
+                Path file = dir.resolve(size.name().toLowerCase() + "-" + charsetName.toLowerCase() + ".fb2");
+                Files.write(file, fb2);
+                System.out.printf("%s %,d bytes%n", file, fb2.length);
+            }
+        }
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(pick(random, WORDS));
+        }
+        return sb.toString();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,69 @@
+package com.sopds.catalog.benchmark;
+
+import com.sopds.catalog.service.parser.Fb2Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * {@link Fb2Parser} over synthetic documents of every size in both common charsets.
+ * Run with the GC profiler (the default of the jmh task) to see bytes allocated per parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class Fb2ParserBenchmark {
+
+    @Param({"SMALL", "TYPICAL", "HUGE"})
+    public Fb2Fixtures.Size size;
+
+    @Param({"UTF-8", "windows-1251"})
+    public String charset;
+
+    private final Fb2Parser parser = new Fb2Parser();
+    private byte[] fb2;
+    private Path zipPath;
+    private ZipFile zipFile;
+    private ZipEntry zipEntry;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fb2 = Fb2Fixtures.generate(size, Charset.forName(charset));
+        zipPath = Files.createTempFile("fb2-benchmark-", ".zip");
+        Fb2Fixtures.writeZip(zipPath, "book.fb2", fb2);
+        zipFile = new ZipFile(zipPath.toFile());
+        zipEntry = zipFile.getEntry("book.fb2");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        zipFile.close();
+        Files.deleteIfExists(zipPath);
+    }
+
+    @Benchmark
+    public Fb2Parser.Fb2Metadata parse() {
+        return parser.parse(new ByteArrayInputStream(fb2));
+    }
+
+    @Benchmark
+    public Fb2Parser.Fb2Metadata parseFromZip() {
+        return parser.parseFromZip(zipFile, zipEntry);
+    }
+}
@@ -0,0 +1,280 @@
+package com.sopds.catalog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sopds.catalog.SopdsApplication;
+import com.sopds.catalog.service.BookScannerService;
+import com.sopds.catalog.service.CatalogService;
+import com.sopds.catalog.service.SearchService;
+import com.sopds.catalog.service.catalog.BookCursorPage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end benchmark of {@link BookScannerService#scanLibrary()}: generates a {@link SyntheticLibrary},
+ * runs a full scan and then a rescan of the unchanged tree, and writes the results as JSON.
+ * <p>
+ * Run with {@code ./gradlew scanBenchmark --args="--books=5000 --archives=20 --entries=500"}.
+ * Options (all {@code --name=value}):
+ * <ul>
+ *     <li>{@code books}, {@code archives}, {@code entries}, {@code stubs}, {@code seed}: library shape</li>
+ *     <li>{@code library}: directory to generate into (default: a temporary directory, deleted afterwards)</li>
+ *     <li>{@code db}: {@code h2} (embedded, default) or {@code postgres}</li>
+ *     <li>{@code url}, {@code user}, {@code password}: PostgreSQL connection, the schema is created by Flyway.
+ *     Use an empty database: the benchmark counts books added by its own scans.</li>
+ *     <li>{@code search}: comma-separated queries timed against {@link SearchService} after the scans;
+ *     ranked full-text search needs {@code db=postgres}, H2 measures the title filter fallback</li>
+ *     <li>{@code listing-pages}: pages of the by-title book listing walked after the scans (default 20);
+ *     on PostgreSQL the average books row width is recorded with it</li>
+ *     <li>{@code output}: result file (default {@code build/scan-benchmark.json})</li>
+ * </ul>
+ * Statements per book counts JDBC statements prepared through Hibernate; the manifest upsert,
+ * one JDBC batch per writer transaction, is not included.
+ */
+public final class ScanBenchmarkHarness {
+
+    private ScanBenchmarkHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int books = Integer.parseInt(options.getOrDefault("books", "2000"));
+        int archives = Integer.parseInt(options.getOrDefault("archives", "10"));
+        int entries = Integer.parseInt(options.getOrDefault("entries", "200"));
+        int stubs = Integer.parseInt(options.getOrDefault("stubs", "200"));
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(Fb2Fixtures.DEFAULT_SEED)));
+        String db = options.getOrDefault("db", "h2");
+        Path output = Paths.get(options.getOrDefault("output", "build/scan-benchmark.json"));
+
+        boolean temporary = !options.containsKey("library");
+        Path library = temporary
+                ? Files.createTempDirectory("sopds-scan-benchmark-")
+                : Paths.get(options.get("library"));
+
+        SyntheticLibrary generator = new SyntheticLibrary(books, archives, entries, stubs, seed);
+        long generateStart = System.nanoTime();
+        generator.generate(library);
+        System.out.printf("Generated %d books in %s (%.1f s)%n", generator.expectedBooks(), library,
+                (System.nanoTime() - generateStart) / 1e9);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", Instant.now().toString());
+        result.put("javaVersion", System.getProperty("java.version"));
+        result.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        result.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        result.put("database", db);
+        Map<String, Object> shape = new LinkedHashMap<>();
+        shape.put("looseBooks", books);
+        shape.put("archives", archives);
+        shape.put("entriesPerArchive", entries);
+        shape.put("stubs", stubs);
+        shape.put("seed", seed);
+        shape.put("expectedBooks", generator.expectedBooks());
+        shape.put("libraryBytes", directorySize(library));
+        result.put("library", shape);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SopdsApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(applicationProperties(options, db, library))
+                .run()) {
+            BookScannerService scanner = context.getBean(BookScannerService.class);
+            Statistics statistics = context.getBean(EntityManagerFactory.class)
+                    .unwrap(SessionFactory.class).getStatistics();
+
+            List<Map<String, Object>> phases = new ArrayList<>();
+            phases.add(runPhase("full-scan", scanner, statistics));
+            phases.add(runPhase("unchanged-rescan", scanner, statistics));
+            result.put("phases", phases);
+            result.put("listing", runListing(Integer.parseInt(options.getOrDefault("listing-pages", "20")),
+                    context.getBean(CatalogService.class), context.getBean(JdbcTemplate.class), statistics, db));
+            if (options.containsKey("search")) {
+                result.put("search", runSearches(options.get("search"), context.getBean(SearchService.class)));
+            }
+        } finally {
+            if (temporary) {
+                deleteTree(library);
+            }
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), result);
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    /**
+     * Walks the by-title listing page by page with keyset cursors, the query behind the web and OPDS book lists.
+     * A page should take a constant number of statements however many books it lists.
+     */
+    private static Map<String, Object> runListing(int pages, CatalogService catalogService, JdbcTemplate jdbcTemplate,
+                                                  Statistics statistics, String db) {
+        // Warm-up page
+        catalogService.books(null);
+        long statements = statistics.getPrepareStatementCount();
+        long start = System.nanoTime();
+        int walked = 0;
+        String cursor = null;
+        do {
+            BookCursorPage page = catalogService.books(cursor);
+            cursor = page.getNextCursor();
+            walked++;
+        } while (cursor != null && walked < pages);
+        double millisPerPage = (System.nanoTime() - start) / 1e6 / walked;
+        double statementsPerPage = (double) (statistics.getPrepareStatementCount() - statements) / walked;
+
+        Map<String, Object> listing = new LinkedHashMap<>();
+        listing.put("pages", walked);
+        listing.put("millisPerPage", round(millisPerPage));
+        listing.put("statementsPerPage", round(statementsPerPage));
+        if ("postgres".equals(db)) {
+            listing.put("avgBookRowBytes", round(jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(AVG(pg_column_size(b.*)), 0)::float8 FROM books b", Double.class)));
+            listing.put("booksHeapBytes", jdbcTemplate.queryForObject(
+                    "SELECT pg_relation_size('books')", Long.class));
+        }
+        System.out.printf("listing: %d pages, %.2f ms/page, %.1f statements/page%n",
+                walked, millisPerPage, statementsPerPage);
+        return listing;
+    }
+
+    private static List<Map<String, Object>> runSearches(String queries, SearchService searchService) {
+        List<Map<String, Object>> searches = new ArrayList<>();
+        for (String query : queries.split(",")) {
+            if (query.isBlank()) {
+                continue;
+            }
+            // The first call warms up the plan cache, the second one is measured
+            searchService.searchBooks(query, null);
+            long start = System.nanoTime();
+            BookCursorPage page = searchService.searchBooks(query, null);
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            Map<String, Object> search = new LinkedHashMap<>();
+            search.put("query", query);
+            search.put("fullText", searchService.isFullTextAvailable());
+            search.put("firstPageBooks", page.getBooks().size());
+            search.put("millis", round(millis));
+            searches.add(search);
+            System.out.printf("search '%s': %d books on the first page in %.1f ms%n",
+                    query, page.getBooks().size(), millis);
+        }
+        return searches;
+    }
+
+    private static Map<String, Object> runPhase(String name, BookScannerService scanner, Statistics statistics) {
+        System.gc();
+        statistics.clear();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        scanner.scanLibrary();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Sum of per-pool peaks: an upper bound of the peak heap, pools peak at different times
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        Map<String, Object> scanStatistics = scanner.getStatistics();
+        int written = ((Number) scanStatistics.get("addedBooks")).intValue()
+                + ((Number) scanStatistics.get("updatedBooks")).intValue();
+        long statements = statistics.getPrepareStatementCount();
+
+        Map<String, Object> phase = new LinkedHashMap<>();
+        phase.put("name", name);
+        phase.put("seconds", round(seconds));
+        phase.put("booksWritten", written);
+        phase.put("booksPerSecond", round(written / seconds));
+        phase.put("sqlStatements", statements);
+        phase.put("sqlStatementsPerBook", written > 0 ? round((double) statements / written) : null);
+        phase.put("entityInserts", statistics.getEntityInsertCount());
+        phase.put("queries", statistics.getQueryExecutionCount());
+        phase.put("transactions", statistics.getSuccessfulTransactionCount());
+        phase.put("peakHeapBytes", peakHeap);
+        phase.put("scanner", scanStatistics);
+
+        System.out.printf("%s: %d books in %.1f s, %.1f books/s, %.2f statements/book, peak heap %d MB%n",
+                name, written, seconds, written / seconds,
+                written > 0 ? (double) statements / written : 0.0, peakHeap / (1024 * 1024));
+        return phase;
+    }
+
+    private static Map<String, Object> applicationProperties(Map<String, String> options, String db, Path library) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("sopds.library.root-path", library.toString());
+        properties.put("sopds.library.scan-on-startup", "false");
+        properties.put("sopds.library.watch-enabled", "false");
+        properties.put("spring.jpa.properties.hibernate.generate_statistics", "true");
+        properties.put("logging.level.com.sopds", "WARN");
+        properties.put("logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener", "WARN");
+
+        if ("postgres".equals(db)) {
+            properties.put("spring.datasource.url", options.getOrDefault("url",
+                    "jdbc:postgresql://localhost:5432/sopds_benchmark?reWriteBatchedInserts=true"));
+            properties.put("spring.datasource.username", options.getOrDefault("user", "postgres"));
+            properties.put("spring.datasource.password", options.getOrDefault("password", "postgres"));
+        } else {
+            // The migrations use PostgreSQL-only DDL, so H2 gets the schema from the entities
+            properties.put("spring.datasource.url",
+                    "jdbc:h2:mem:sopds-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.datasource.username", "sa");
+            properties.put("spring.datasource.password", "");
+            properties.put("spring.flyway.enabled", "false");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create");
+            properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.put("spring.jpa.defer-datasource-initialization", "true");
+            properties.put("spring.sql.init.mode", "always");
+            properties.put("spring.sql.init.data-locations", "classpath:db/migration/V2__Insert_genres.sql");
+        }
+        return properties;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path path : files.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
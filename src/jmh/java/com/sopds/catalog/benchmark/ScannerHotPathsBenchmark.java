@@ -0,0 +1,59 @@
+package com.sopds.catalog.benchmark;
+
+import com.sopds.catalog.service.parser.Fb2Parser;
+import com.sopds.catalog.service.scanner.ScanFormats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small per-book helpers the scanner calls for every book or archive entry.
+ * Each benchmark runs over a fixed mix of inputs, including the ones that miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScannerHotPathsBenchmark {
+
+    private final Fb2Parser.Fb2Metadata.AuthorInfo[] authors = {
+            Fb2Parser.Fb2Metadata.AuthorInfo.builder()
+                    .firstName("Аркадий").middleName("Натанович").lastName("Стругацкий").build(),
+            Fb2Parser.Fb2Metadata.AuthorInfo.builder().firstName("Isaac").lastName("Asimov").build(),
+            Fb2Parser.Fb2Metadata.AuthorInfo.builder().lastName("Гомер").build(),
+            Fb2Parser.Fb2Metadata.AuthorInfo.builder().firstName("").middleName("").lastName("").build()
+    };
+
+    private final String[] dates = {"2005-03-14", "1999", "14.03.2005", "14/03/2005", "весна 2005", ""};
+
+    private final String[] filenames = {
+            "Strugatsky_Piknik.fb2", "archive/fb2-000001-010000.zip", "Book.Name.With.Dots.EPUB",
+            "collection.inpx", "README", ".hidden", "trailing."
+    };
+
+    @Benchmark
+    public void getFullName(Blackhole blackhole) {
+        for (Fb2Parser.Fb2Metadata.AuthorInfo author : authors) {
+            blackhole.consume(author.getFullName());
+        }
+    }
+
+    @Benchmark
+    public void parseDate(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(ScanFormats.parseDate(date));
+        }
+    }
+
+    @Benchmark
+    public void getFileExtension(Blackhole blackhole) {
+        for (String filename : filenames) {
+            blackhole.consume(ScanFormats.getFileExtension(filename));
+        }
+    }
+}
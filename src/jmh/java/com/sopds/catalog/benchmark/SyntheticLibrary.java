@@ -0,0 +1,105 @@
+package com.sopds.catalog.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates a reproducible library tree for end-to-end scan benchmarks:
+ * loose FB2 files spread over subdirectories, ZIP archives of FB2 books with cp866 entry names
+ * (as written by Russian DOS/Windows archivers) and EPUB/PDF stubs that carry no metadata.
+ */
+public final class SyntheticLibrary {
+
+    private static final int FILES_PER_DIRECTORY = 500;
+    private static final Charset CP866 = Charset.forName("cp866");
+    private static final Charset CP1251 = Charset.forName("windows-1251");
+
+    private static final String[] TITLE_WORDS = {
+            "Пикник", "обочине", "Трудно", "быть", "богом", "Понедельник", "начинается", "субботу",
+            "Туманность", "Андромеды", "Лунная", "радуга", "Сказка", "тройке", "Ночной", "дозор"
+    };
+
+    private final int looseBooks;
+    private final int archives;
+    private final int entriesPerArchive;
+    private final int stubs;
+    private final long seed;
+
+    public SyntheticLibrary(int looseBooks, int archives, int entriesPerArchive, int stubs, long seed) {
+        this.looseBooks = looseBooks;
+        this.archives = archives;
+        this.entriesPerArchive = entriesPerArchive;
+        this.stubs = stubs;
+        this.seed = seed;
+    }
+
+    /**
+     * Number of books the scanner should find in the generated tree.
+     */
+    public int expectedBooks() {
+        return looseBooks + archives * entriesPerArchive + stubs;
+    }
+
+    public void generate(Path root) throws IOException {
+        Random random = new Random(seed);
+
+        for (int i = 0; i < looseBooks; i++) {
+            Path dir = root.resolve("fb2").resolve(String.format("%04d", i / FILES_PER_DIRECTORY));
+            Files.createDirectories(dir);
+            Files.write(dir.resolve(String.format("book-%06d.fb2", i)), book(i));
+        }
+
+        Path archiveDir = root.resolve("archives");
+        Files.createDirectories(archiveDir);
+        for (int a = 0; a < archives; a++) {
+            Path zip = archiveDir.resolve(String.format("fb2-%06d-%06d.zip",
+                    a * entriesPerArchive + 1, (a + 1) * entriesPerArchive));
+            try (OutputStream out = Files.newOutputStream(zip);
+                 ZipOutputStream zipOut = new ZipOutputStream(out, CP866)) {
+                for (int e = 0; e < entriesPerArchive; e++) {
+                    int id = looseBooks + a * entriesPerArchive + e;
+                    // Like old archivers: Cyrillic names in cp866, without the UTF-8 flag
+                    zipOut.putNextEntry(new ZipEntry(title(random) + " " + id + ".fb2"));
+                    zipOut.write(book(id));
+                    zipOut.closeEntry();
+                }
+            }
+        }
+
+        for (int i = 0; i < stubs; i++) {
+            Path dir = root.resolve("other").resolve(String.format("%04d", i / FILES_PER_DIRECTORY));
+            Files.createDirectories(dir);
+            if (i % 2 == 0) {
+                Files.write(dir.resolve(String.format("stub-%06d.pdf", i)),
+                        ("%PDF-1.4\n% synthetic stub " + i + "\n%%EOF\n").getBytes(StandardCharsets.US_ASCII));
+            } else {
+                try (OutputStream out = Files.newOutputStream(dir.resolve(String.format("stub-%06d.epub", i)));
+                     ZipOutputStream zipOut = new ZipOutputStream(out)) {
+                    zipOut.putNextEntry(new ZipEntry("mimetype"));
+                    zipOut.write("application/epub+zip".getBytes(StandardCharsets.US_ASCII));
+                    zipOut.closeEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Mostly small documents with every fiftieth one novel-sized, alternating charsets.
+     */
+    private byte[] book(int id) {
+        Fb2Fixtures.Size size = id % 50 == 0 ? Fb2Fixtures.Size.TYPICAL : Fb2Fixtures.Size.SMALL;
+        Charset charset = id % 2 == 0 ? StandardCharsets.UTF_8 : CP1251;
+        return Fb2Fixtures.generate(size, charset, seed + id);
+    }
+
+    private static String title(Random random) {
+        return TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)];
+    }
+}
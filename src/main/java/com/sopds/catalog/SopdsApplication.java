@@ -2,12 +2,14 @@ package com.sopds.catalog;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaAuditing
-@EnableCaching
+// Cache hits return before a transaction and its connection are taken
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 @EnableScheduling
 public class SopdsApplication {
     public static void main(String[] args) {
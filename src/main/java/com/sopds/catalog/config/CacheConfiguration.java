@@ -0,0 +1,62 @@
+package com.sopds.catalog.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sopds.catalog.service.CatalogCacheService;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounds of the read-path caches, as Caffeine specs. Every cache records statistics, so hit rates
+ * are exported with the other metrics as {@code cache.gets{cache=...,result=hit|miss}}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sopds.cache")
+@Getter
+@Setter
+public class CacheConfiguration {
+
+    /**
+     * Book details by id
+     */
+    private String books = "maximumSize=10000,expireAfterWrite=30m";
+
+    /**
+     * Authors and the pages of their books
+     */
+    private String authors = "maximumSize=5000,expireAfterWrite=30m";
+
+    /**
+     * Series and the pages of their books
+     */
+    private String series = "maximumSize=5000,expireAfterWrite=30m";
+
+    /**
+     * The genre tree and single genres; the scanner never changes them
+     */
+    private String genres = "maximumSize=1000,expireAfterWrite=6h";
+
+    /**
+     * Versions of recently looked-up or changed books, authors and series, per cache. Entries must
+     * outlive the cache entries keyed on them, or those entries stop being found.
+     */
+    private String versions = "maximumSize=50000,expireAfterAccess=1h";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> catalogCacheCustomizer() {
+        return cacheManager -> {
+            register(cacheManager, CatalogCacheService.BOOKS, books);
+            register(cacheManager, CatalogCacheService.AUTHORS, authors);
+            register(cacheManager, CatalogCacheService.SERIES, series);
+            register(cacheManager, CatalogCacheService.GENRES, genres);
+        };
+    }
+
+    private static void register(CaffeineCacheManager cacheManager, String name, String spec) {
+        cacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+    }
+}
@@ -0,0 +1,28 @@
+package com.sopds.catalog.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "sopds.covers")
+@Getter
+@Setter
+public class CoverConfiguration {
+
+    /**
+     * Extract FB2 covers during the scan; reads each FB2 file up to its cover image
+     */
+    private boolean extractEnabled = true;
+
+    /**
+     * Directory of the content-addressed cover cache: originals and resized images
+     */
+    private String cacheDir = "covers";
+
+    /**
+     * Larger cover images are not stored
+     */
+    private long maxCoverBytes = 5 * 1024 * 1024;
+}
@@ -0,0 +1,38 @@
+package com.sopds.catalog.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "sopds.opds")
+@Getter
+@Setter
+public class OpdsConfiguration {
+
+    /**
+     * Catalog title shown by OPDS readers
+     */
+    private String title = "SOPDS Catalog";
+
+    /**
+     * Entries per page of the OPDS feeds and the web catalog
+     */
+    private int pageSize = 50;
+
+    /**
+     * Longest prefix of the alphabet navigation of books, authors and series
+     */
+    private int alphabetDepth = 3;
+
+    /**
+     * Alphabet groups with more items than this are split by the next character instead of listed
+     */
+    private int splitItems = 300;
+
+    /**
+     * Cron expression of the job that recounts the main page statistics exactly
+     */
+    private String statsReconcileCron = "0 30 * * * ?";
+}
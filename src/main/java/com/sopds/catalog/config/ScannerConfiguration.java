@@ -49,6 +49,17 @@ public class ScannerConfiguration {
      */
     private String zipEncoding = "cp866";
 
+    /**
+     * Archive workers shared by the whole scan: entry ranges of large ZIP archives, each with its own reader
+     * on the file, and INPX archive checks; 1 reads archives sequentially
+     */
+    private int zipThreads = 4;
+
+    /**
+     * Archives with at least this many entries left to read are split into ranges for the zip workers
+     */
+    private int zipParallelEntries = 2000;
+
     /**
      * Enable INPX file processing
      */
@@ -74,6 +85,56 @@ public class ScannerConfiguration {
      */
     private int scanThreads = 4;
 
+    /**
+     * Capacity of each bounded queue between scan pipeline stages
+     */
+    private int scanQueueCapacity = 1000;
+
+    /**
+     * Number of books committed per writer transaction
+     */
+    private int scanBatchSize = 200;
+
+    /**
+     * Maximum seconds a started writer batch waits for more books before it is committed
+     */
+    private long scanBatchSeconds = 10;
+
+    /**
+     * Number of books after which the persistence context is flushed and cleared inside a batch
+     */
+    private int scanFlushSize = 50;
+
+    /**
+     * Record a resume checkpoint inside a ZIP archive every N entries
+     */
+    private int scanCheckpointEntries = 1000;
+
+    /**
+     * Compute the MD5 of every book while it is parsed and flag exact copies as duplicates after the scan
+     */
+    private boolean scanMd5 = true;
+
+    /**
+     * Watch the library for new and changed files and index them without a full scan
+     */
+    private boolean watchEnabled = false;
+
+    /**
+     * Quiet period in milliseconds before a changed path is indexed; further events restart it
+     */
+    private long watchDebounceMs = 2000;
+
+    /**
+     * Poll file modification times instead of using native file system events (NFS, SMB mounts)
+     */
+    private boolean watchPolling = false;
+
+    /**
+     * Interval in seconds between polls when polling is used
+     */
+    private long watchPollSeconds = 60;
+
     /**
      * Maximum file size to process in MB
      */
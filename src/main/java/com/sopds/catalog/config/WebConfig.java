@@ -0,0 +1,24 @@
+package com.sopds.catalog.config;
+
+import com.sopds.catalog.controller.CatalogEtagInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CatalogEtagInterceptor catalogEtagInterceptor;
+
+    /**
+     * Catalog pages and feeds; downloads and covers have validators of their own
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogEtagInterceptor)
+                .addPathPatterns("/opds/**", "/", "/main", "/catalog", "/book", "/author", "/series", "/searchbooks",
+                        "/searchauthors", "/searchseries");
+    }
+}
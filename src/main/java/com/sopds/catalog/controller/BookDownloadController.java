@@ -0,0 +1,209 @@
+package com.sopds.catalog.controller;
+
+import com.sopds.catalog.entity.Book;
+import com.sopds.catalog.repository.BookRepository;
+import com.sopds.catalog.service.BookFileService;
+import com.sopds.catalog.service.download.BookFile;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Book downloads for readers and OPDS clients.
+ * <p>
+ * Loose files are never buffered on the heap: Tomcat sends them with {@code sendfile} when the
+ * connector supports it, otherwise they are copied with {@link FileChannel#transferTo}. A single
+ * byte range is honoured for loose files so large PDF/DJVU downloads can be resumed. Books inside
+ * ZIP archives are inflated on the fly and always sent whole.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+@Tag(name = "Download API", description = "API для скачивания книг")
+public class BookDownloadController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Smaller files are cheaper to copy than to hand over to the poller, same limit as Tomcat's DefaultServlet
+     */
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private final BookRepository bookRepository;
+    private final BookFileService bookFileService;
+
+    /**
+     * Download book content
+     */
+    @GetMapping("/{id}/download")
+    @Operation(
+            summary = "Скачать книгу",
+            description = "Отдаёт файл книги. Для отдельных файлов поддерживаются заголовки Range и If-Range, " +
+                    "книги из ZIP-архивов отдаются целиком"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Файл книги"),
+            @ApiResponse(responseCode = "206", description = "Запрошенный диапазон файла"),
+            @ApiResponse(responseCode = "304", description = "Файл не изменился"),
+            @ApiResponse(responseCode = "404", description = "Книга или её файл не найдены"),
+            @ApiResponse(responseCode = "416", description = "Диапазон за пределами файла")
+    })
+    public void download(
+            @Parameter(description = "Идентификатор книги") @PathVariable Long id,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        Book book = bookRepository.findById(id)
+                .filter(Book::getAvailable)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found: " + id));
+        BookFile bookFile = bookFileService.locate(book)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book file not found: " + id));
+
+        String etag = etag(bookFile);
+        // Sets ETag and Last-Modified, and 304 when the client copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, bookFile.getLastModified())) {
+            return;
+        }
+
+        response.setContentType(bookFileService.contentType(book.getFormat()));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(book.getFilename() != null ? book.getFilename() : String.valueOf(id), StandardCharsets.UTF_8)
+                .build().toString());
+        boolean head = "HEAD".equals(request.getMethod());
+
+        if (bookFile.isArchiveEntry()) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+            if (bookFile.getLength() >= 0) {
+                response.setContentLengthLong(bookFile.getLength());
+            }
+            if (!head) {
+                try (InputStream in = bookFileService.openEntry(bookFile)) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+            return;
+        }
+
+        long length = bookFile.getLength();
+        long start = 0;
+        long end = length - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        HttpRange range = requestedRange(request, etag, bookFile.getLastModified());
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (head || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The container copies the file to the socket in the kernel after this method returns
+            request.setAttribute(SENDFILE_FILENAME, bookFile.getFile().toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(bookFile.getFile(), StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    // The file was truncated after Content-Length was sent
+                    throw new IOException("Unexpected end of " + bookFile.getFile());
+                }
+                position += sent;
+                remaining -= sent;
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * The single range to send, or null for the whole file. Multiple ranges and unparseable
+     * headers are answered with the whole file, as RFC 9110 allows; so is a Range whose
+     * If-Range validator no longer matches the file.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !matchesIfRange(request, etag, lastModified)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid Range header: {}", rangeHeader);
+            return null;
+        }
+    }
+
+    private static boolean matchesIfRange(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Strong comparison: a weak validator never matches
+            return ifRange.equals(etag);
+        }
+        try {
+            // HTTP dates have a one second resolution
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String etag(BookFile bookFile) {
+        return "\"" + Long.toHexString(bookFile.getLastModified()) + "-" + Long.toHexString(bookFile.getLength())
+                + (bookFile.isArchiveEntry() ? "-" + Integer.toHexString(bookFile.getEntryName().hashCode()) : "")
+                + "\"";
+    }
+}
@@ -0,0 +1,37 @@
+package com.sopds.catalog.controller;
+
+import com.sopds.catalog.service.CatalogGenerationService;
+import com.sopds.catalog.service.CatalogGenerationService.Generation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Conditional GET for the catalog pages and OPDS feeds. Their content only changes with the
+ * catalog generation, so a client copy carrying the current ETag or a Last-Modified not older than
+ * it is answered with 304 before the controller runs any query or renders anything.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogEtagInterceptor implements HandlerInterceptor {
+
+    private final CatalogGenerationService catalogGeneration;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        Generation generation = catalogGeneration.current();
+        // Clients may keep the page but have to revalidate it on every use
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        // Sets ETag and Last-Modified, and 304 when the client copy is current
+        return !new ServletWebRequest(request, response).checkNotModified(generation.etag(), generation.modifiedAt());
+    }
+}
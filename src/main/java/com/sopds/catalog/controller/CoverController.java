@@ -0,0 +1,87 @@
+package com.sopds.catalog.controller;
+
+import com.sopds.catalog.entity.Book;
+import com.sopds.catalog.repository.BookRepository;
+import com.sopds.catalog.service.CoverService;
+import com.sopds.catalog.service.cover.CoverSize;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Book covers in fixed sizes from the cover cache.
+ * <p>
+ * The ETag is derived from the cover's content hash and size, so it is known before the image
+ * is read or generated, and a revalidation costs one book lookup.
+ */
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+@Tag(name = "Cover API", description = "API для обложек книг")
+public class CoverController {
+
+    /**
+     * A rescanned book may get a new cover under the same URL, so clients revalidate now and then
+     */
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(7)).cachePublic();
+
+    private final BookRepository bookRepository;
+    private final CoverService coverService;
+
+    @GetMapping("/{id}/cover")
+    @Operation(
+            summary = "Обложка книги",
+            description = "Отдаёт обложку книги в формате JPEG в одном из размеров: thumbnail, medium, large. " +
+                    "Изображение нужного размера создаётся при первом запросе"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Обложка"),
+            @ApiResponse(responseCode = "304", description = "Обложка не изменилась"),
+            @ApiResponse(responseCode = "400", description = "Неизвестный размер"),
+            @ApiResponse(responseCode = "404", description = "У книги нет обложки")
+    })
+    public ResponseEntity<Resource> cover(
+            @Parameter(description = "Идентификатор книги") @PathVariable Long id,
+            @Parameter(description = "Размер: thumbnail, medium или large") @RequestParam(defaultValue = "large") String size,
+            WebRequest request) throws IOException {
+
+        CoverSize coverSize = CoverSize.fromKey(size)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown cover size: " + size));
+        Book book = bookRepository.findById(id)
+                .filter(b -> b.getCover() != null)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No cover for book: " + id));
+
+        String etag = "\"" + book.getCover() + "-" + coverSize.key() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Path image = coverService.cover(book, coverSize)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No cover for book: " + id));
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(new FileSystemResource(image));
+    }
+}
@@ -0,0 +1,257 @@
+package com.sopds.catalog.controller;
+
+import com.sopds.catalog.config.OpdsConfiguration;
+import com.sopds.catalog.repository.AuthorRepository.FeedAuthorView;
+import com.sopds.catalog.repository.SeriesRepository.FeedSeriesView;
+import com.sopds.catalog.service.BookFileService;
+import com.sopds.catalog.service.CatalogService;
+import com.sopds.catalog.service.SearchService;
+import com.sopds.catalog.service.catalog.BookCursorPage;
+import com.sopds.catalog.service.catalog.BookItem;
+import com.sopds.catalog.service.catalog.CursorPage;
+import com.sopds.catalog.service.catalog.NavigationItem;
+import com.sopds.catalog.service.opds.OpdsFeedWriter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
+/**
+ * OPDS 1.2 catalog for e-book readers.
+ * <p>
+ * Feeds are streamed to the response with {@link OpdsFeedWriter}; listings page with opaque keyset
+ * cursors passed back in the {@code cursor} parameter of the {@code next} link.
+ */
+@Slf4j
+@Controller
+@RequestMapping("/opds")
+@RequiredArgsConstructor
+@Tag(name = "OPDS", description = "OPDS-каталог для читалок")
+public class OpdsController {
+
+    private final CatalogService catalogService;
+    private final SearchService searchService;
+    private final BookFileService bookFileService;
+    private final OpdsConfiguration config;
+
+    @GetMapping({"", "/"})
+    @Operation(summary = "Корневой каталог OPDS")
+    public void root(HttpServletRequest request, HttpServletResponse response) throws IOException, XMLStreamException {
+        try (OpdsFeedWriter feed = feed(request, response, OpdsFeedWriter.NAVIGATION_TYPE)) {
+            feed.startFeed("urn:sopds:root", config.getTitle(), "/opds", OpdsFeedWriter.NAVIGATION_TYPE);
+            feed.navigationEntry("urn:sopds:new", "Новые книги", "/opds/new", OpdsFeedWriter.ACQUISITION_TYPE,
+                    "Последние добавленные книги");
+            feed.navigationEntry("urn:sopds:books", "Все книги", "/opds/books", OpdsFeedWriter.ACQUISITION_TYPE,
+                    "Книги по названию");
+            feed.navigationEntry("urn:sopds:authors", "Авторы", "/opds/authors", OpdsFeedWriter.NAVIGATION_TYPE,
+                    "Книги по авторам");
+            feed.navigationEntry("urn:sopds:series", "Серии", "/opds/series", OpdsFeedWriter.NAVIGATION_TYPE,
+                    "Книги по сериям");
+            feed.navigationEntry("urn:sopds:genres", "Жанры", "/opds/genres", OpdsFeedWriter.NAVIGATION_TYPE,
+                    "Книги по жанрам");
+            feed.endFeed();
+        }
+    }
+
+    @GetMapping("/new")
+    @Operation(summary = "Новые книги")
+    public void newBooks(@RequestParam(required = false) String cursor,
+                         HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        writeBooks(request, response, "urn:sopds:new", "Новые книги", "/opds/new",
+                catalogService.newBooks(cursor));
+    }
+
+    @GetMapping("/books")
+    @Operation(summary = "Все книги по названию")
+    public void books(@RequestParam(required = false) String cursor,
+                      HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        writeBooks(request, response, "urn:sopds:books", "Все книги", "/opds/books",
+                catalogService.books(cursor));
+    }
+
+    @GetMapping("/authors")
+    @Operation(summary = "Авторы")
+    public void authors(@RequestParam(required = false) String cursor,
+                        HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        CursorPage<FeedAuthorView> page = catalogService.authors(cursor);
+        try (OpdsFeedWriter feed = feed(request, response, OpdsFeedWriter.NAVIGATION_TYPE)) {
+            feed.startFeed("urn:sopds:authors", "Авторы", selfHref("/opds/authors", cursor),
+                    OpdsFeedWriter.NAVIGATION_TYPE);
+            nextLink(feed, "/opds/authors", page.getNextCursor(), OpdsFeedWriter.NAVIGATION_TYPE);
+            for (FeedAuthorView author : page.getItems()) {
+                feed.navigationEntry("urn:sopds:author:" + author.getId(), author.getFullName(),
+                        "/opds/authors/" + author.getId(), OpdsFeedWriter.ACQUISITION_TYPE, null);
+            }
+            feed.endFeed();
+        }
+    }
+
+    @GetMapping("/authors/{id}")
+    @Operation(summary = "Книги автора")
+    public void authorBooks(@PathVariable long id, @RequestParam(required = false) String cursor,
+                            HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        NavigationItem author = catalogService.findAuthor(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Author not found: " + id));
+        writeBooks(request, response, "urn:sopds:author:" + id, author.name(), "/opds/authors/" + id,
+                catalogService.authorBooks(id, cursor));
+    }
+
+    @GetMapping("/series")
+    @Operation(summary = "Серии")
+    public void series(@RequestParam(required = false) String cursor,
+                       HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        CursorPage<FeedSeriesView> page = catalogService.series(cursor);
+        try (OpdsFeedWriter feed = feed(request, response, OpdsFeedWriter.NAVIGATION_TYPE)) {
+            feed.startFeed("urn:sopds:series", "Серии", selfHref("/opds/series", cursor),
+                    OpdsFeedWriter.NAVIGATION_TYPE);
+            nextLink(feed, "/opds/series", page.getNextCursor(), OpdsFeedWriter.NAVIGATION_TYPE);
+            for (FeedSeriesView series : page.getItems()) {
+                feed.navigationEntry("urn:sopds:series:" + series.getId(), series.getName(),
+                        "/opds/series/" + series.getId(), OpdsFeedWriter.ACQUISITION_TYPE, null);
+            }
+            feed.endFeed();
+        }
+    }
+
+    @GetMapping("/series/{id}")
+    @Operation(summary = "Книги серии")
+    public void seriesBooks(@PathVariable long id, @RequestParam(required = false) String cursor,
+                            HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        NavigationItem series = catalogService.findSeries(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Series not found: " + id));
+        writeBooks(request, response, "urn:sopds:series:" + id, series.name(), "/opds/series/" + id,
+                catalogService.seriesBooks(id, cursor));
+    }
+
+    @GetMapping("/genres")
+    @Operation(summary = "Жанры")
+    public void genres(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        try (OpdsFeedWriter feed = feed(request, response, OpdsFeedWriter.NAVIGATION_TYPE)) {
+            feed.startFeed("urn:sopds:genres", "Жанры", "/opds/genres", OpdsFeedWriter.NAVIGATION_TYPE);
+            for (NavigationItem genre : catalogService.genres()) {
+                feed.navigationEntry("urn:sopds:genre:" + genre.id(), genre.name(),
+                        "/opds/genres/" + genre.id(), OpdsFeedWriter.ACQUISITION_TYPE, null);
+            }
+            feed.endFeed();
+        }
+    }
+
+    @GetMapping("/genres/{id}")
+    @Operation(summary = "Книги жанра", description = "Книги жанра, новые первыми")
+    public void genreBooks(@PathVariable long id, @RequestParam(required = false) String cursor,
+                           HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        NavigationItem genre = catalogService.findGenre(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Genre not found: " + id));
+        writeBooks(request, response, "urn:sopds:genre:" + id, genre.name(), "/opds/genres/" + id,
+                catalogService.genreBooks(id, cursor));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Поиск книг", description = "Полнотекстовый поиск по названию, авторам, серии и аннотации с учётом опечаток")
+    public void search(@RequestParam("q") String query, @RequestParam(required = false) String cursor,
+                       HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        if (query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Empty search query");
+        }
+        String path = UriComponentsBuilder.fromPath("/opds/search").queryParam("q", query).encode().toUriString();
+        writeBooks(request, response, "urn:sopds:search", "Поиск: " + query, path,
+                searchService.searchBooks(query, cursor));
+    }
+
+    /**
+     * OpenSearch description referenced by the search link of every feed
+     */
+    @GetMapping("/opensearch.xml")
+    @Operation(summary = "Описание поиска OpenSearch")
+    public void openSearch(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, XMLStreamException {
+        response.setContentType(OpdsFeedWriter.OPENSEARCH_TYPE);
+        XMLStreamWriter xml = XMLOutputFactory.newFactory().createXMLStreamWriter(response.getOutputStream(), "UTF-8");
+        String ns = "http://a9.com/-/spec/opensearch/1.1/";
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.setDefaultNamespace(ns);
+        xml.writeStartElement(ns, "OpenSearchDescription");
+        xml.writeDefaultNamespace(ns);
+        xml.writeStartElement(ns, "ShortName");
+        xml.writeCharacters(config.getTitle());
+        xml.writeEndElement();
+        xml.writeStartElement(ns, "Description");
+        xml.writeCharacters("Поиск книг по названию, авторам и сериям");
+        xml.writeEndElement();
+        xml.writeStartElement(ns, "InputEncoding");
+        xml.writeCharacters("UTF-8");
+        xml.writeEndElement();
+        xml.writeEmptyElement(ns, "Url");
+        xml.writeAttribute("type", OpdsFeedWriter.ACQUISITION_TYPE);
+        xml.writeAttribute("template", request.getContextPath() + "/opds/search?q={searchTerms}");
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public void invalidCursor(IllegalArgumentException e, HttpServletResponse response) throws IOException {
+        log.debug("Rejected OPDS request: {}", e.getMessage());
+        response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid cursor");
+    }
+
+    private void writeBooks(HttpServletRequest request, HttpServletResponse response, String id, String title,
+                            String path, BookCursorPage page) throws IOException, XMLStreamException {
+        String cursor = request.getParameter("cursor");
+        try (OpdsFeedWriter feed = feed(request, response, OpdsFeedWriter.ACQUISITION_TYPE)) {
+            feed.startFeed(id, title, selfHref(path, cursor), OpdsFeedWriter.ACQUISITION_TYPE);
+            nextLink(feed, path, page.getNextCursor(), OpdsFeedWriter.ACQUISITION_TYPE);
+            for (BookItem book : page.getBooks()) {
+                feed.bookEntry(book, bookFileService.contentType(book.format()));
+            }
+            feed.endFeed();
+        }
+    }
+
+    private static OpdsFeedWriter feed(HttpServletRequest request, HttpServletResponse response, String type)
+            throws IOException, XMLStreamException {
+        response.setContentType(type);
+        return new OpdsFeedWriter(response.getOutputStream(), request.getContextPath());
+    }
+
+    private static void nextLink(OpdsFeedWriter feed, String path, String nextCursor, String type)
+            throws XMLStreamException {
+        if (nextCursor != null) {
+            feed.nextLink(selfHref(path, nextCursor), type);
+        }
+    }
+
+    private static String selfHref(String path, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return path;
+        }
+        // Cursors are URL-safe Base64, so they need no encoding
+        return path + (path.contains("?") ? "&" : "?") + "cursor=" + cursor;
+    }
+}
@@ -1,6 +1,7 @@
 package com.sopds.catalog.controller;
 
 import com.sopds.catalog.service.BookScannerService;
+import com.sopds.catalog.service.ScanJournalService;
 import com.sopds.catalog.service.ScannerSchedulerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -26,6 +27,7 @@ public class ScannerController {
 
     private final ScannerSchedulerService schedulerService;
     private final BookScannerService scannerService;
+    private final ScanJournalService scanJournalService;
 
     /**
      * Trigger manual library scan
@@ -68,6 +70,44 @@ public class ScannerController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Abort running library scan
+     */
+    @PostMapping("/abort")
+    @Operation(
+            summary = "Прервать сканирование библиотеки",
+            description = "Останавливает текущее сканирование; сохраняются только книги, уже переданные на запись. "
+                    + "Файлы, разбор которых был прерван, будут прочитаны заново при следующем сканировании"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Сканирование прервано",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Сканирование не выполняется",
+                    content = @Content(schema = @Schema(implementation = Map.class))
+            )
+    })
+    public ResponseEntity<Map<String, Object>> abortScan() {
+        log.info("Scan abort requested via API");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+
+        if (!scannerService.abortScan()) {
+            response.put("status", "error");
+            response.put("message", "No scan in progress");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        response.put("status", "success");
+        response.put("message", "Library scan is being aborted");
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Check scan status
      */
@@ -88,13 +128,33 @@ public class ScannerController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get resumable scan state
+     */
+    @GetMapping("/journal")
+    @Operation(
+            summary = "Получить состояние журнала сканирования",
+            description = "Возвращает незавершённый запуск сканирования и контрольные точки, с которых продолжится следующее сканирование"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Состояние журнала получено успешно",
+            content = @Content(schema = @Schema(implementation = Map.class))
+    )
+    public ResponseEntity<Map<String, Object>> getJournal() {
+        Map<String, Object> response = new HashMap<>(scanJournalService.describeResumableState());
+        response.put("isScanning", schedulerService.isCurrentlyScanning());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get scan statistics
      */
     @GetMapping("/stats")
     @Operation(
             summary = "Получить статистику сканирования",
-            description = "Возвращает статистику по последнему сканированию"
+            description = "Возвращает счётчики текущего или последнего сканирования"
     )
     @ApiResponse(
             responseCode = "200",
@@ -102,12 +162,30 @@ public class ScannerController {
             content = @Content(schema = @Schema(implementation = Map.class))
     )
     public ResponseEntity<Map<String, Object>> getStats() {
-        scannerService.logStatistics();
-
-        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> response = new HashMap<>(scannerService.getStatistics());
         response.put("status", "success");
-        response.put("message", "Check logs for statistics");
         response.put("timestamp", System.currentTimeMillis());
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Get live scan progress
+     */
+    @GetMapping("/progress")
+    @Operation(
+            summary = "Получить ход сканирования",
+            description = "Возвращает текущий файл, глубину очередей, скорость и оценку оставшегося времени. " +
+                    "Пока обход каталогов не завершён, оценка времени является нижней границей"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Ход сканирования получен успешно",
+            content = @Content(schema = @Schema(implementation = Map.class))
+    )
+    public ResponseEntity<Map<String, Object>> getProgress() {
+        Map<String, Object> response = new HashMap<>(scannerService.getProgress());
+        response.put("isScanning", schedulerService.isCurrentlyScanning());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
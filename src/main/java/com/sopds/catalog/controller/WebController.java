@@ -1,5 +1,14 @@
 package com.sopds.catalog.controller;
 
+import com.sopds.catalog.repository.AuthorRepository.ListedAuthorView;
+import com.sopds.catalog.repository.SeriesRepository.ListedSeriesView;
+import com.sopds.catalog.service.AlphabetIndexService;
+import com.sopds.catalog.service.CatalogService;
+import com.sopds.catalog.service.CatalogStatsService;
+import com.sopds.catalog.service.SearchService;
+import com.sopds.catalog.service.catalog.BookCursorPage;
+import com.sopds.catalog.service.catalog.CatalogCounters;
+import com.sopds.catalog.service.catalog.CursorPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -8,6 +17,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,6 +29,13 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class WebController {
 
+    private static final DateTimeFormatter LAST_SCAN_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final CatalogService catalogService;
+    private final SearchService searchService;
+    private final AlphabetIndexService alphabetIndex;
+    private final CatalogStatsService catalogStats;
+
     private void addDefaultAttributes(Model model) {
         model.addAttribute("appTitle", "SOPDS Catalog");
 
@@ -32,14 +49,17 @@ public class WebController {
             model.addAttribute("breadcrumbs_cat", new ArrayList<Map<String, Object>>());
         }
 
-        // Add default stats
+        // Catalog stats from the in-memory counters, no query per page view
         if (!model.containsAttribute("stats")) {
+            CatalogCounters counters = catalogStats.getCounters();
             Map<String, Object> stats = new HashMap<>();
-            stats.put("allbooks", 0);
-            stats.put("allauthors", 0);
-            stats.put("allgenres", 0);
-            stats.put("allseries", 0);
-            stats.put("lastscan_date", "Never");
+            stats.put("allbooks", counters.getBooks());
+            stats.put("allauthors", counters.getAuthors());
+            stats.put("allgenres", counters.getGenres());
+            stats.put("allseries", counters.getSeries());
+            stats.put("lastscan_date", counters.getLastScan() != null
+                    ? counters.getLastScan().format(LAST_SCAN_FORMAT)
+                    : "Never");
             model.addAttribute("stats", stats);
         }
     }
@@ -55,7 +75,7 @@ public class WebController {
     @GetMapping("/catalog")
     public String catalog(
             @RequestParam(required = false) Long cat,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             Model model) {
 
         addDefaultAttributes(model);
@@ -63,7 +83,7 @@ public class WebController {
         model.addAttribute("content", "sopds_catalogs");
         model.addAttribute("current", "catalog");
         model.addAttribute("cat_id", cat);
-        model.addAttribute("page", page);
+        model.addAttribute("cursor", cursor);
 
         return "sopds_main";
     }
@@ -76,19 +96,61 @@ public class WebController {
 
         addDefaultAttributes(model);
         model.addAttribute("appTitle", "SOPDS Catalog - Books");
-        model.addAttribute("content", "sopds_selectbook");
         model.addAttribute("current", "book");
-        model.addAttribute("lang_code", lang);
-        model.addAttribute("chars", chars);
+        addAlphabet(model, AlphabetIndexService.Kind.BOOK, lang, chars, "/book", "/searchbooks");
+
+        return "sopds_main";
+    }
+
+    @GetMapping("/author")
+    public String authors(
+            @RequestParam(defaultValue = "0") int lang,
+            @RequestParam(required = false) String chars,
+            Model model) {
+
+        addDefaultAttributes(model);
+        model.addAttribute("appTitle", "SOPDS Catalog - Authors");
+        model.addAttribute("current", "author");
+        addAlphabet(model, AlphabetIndexService.Kind.AUTHOR, lang, chars, "/author", "/searchauthors");
 
         return "sopds_main";
     }
 
+    @GetMapping("/series")
+    public String series(
+            @RequestParam(defaultValue = "0") int lang,
+            @RequestParam(required = false) String chars,
+            Model model) {
+
+        addDefaultAttributes(model);
+        model.addAttribute("appTitle", "SOPDS Catalog - Series");
+        model.addAttribute("current", "series");
+        addAlphabet(model, AlphabetIndexService.Kind.SERIES, lang, chars, "/series", "/searchseries");
+
+        return "sopds_main";
+    }
+
+    /**
+     * One level of the alphabet drill-down, read from the in-memory prefix index. Expandable
+     * groups link to the next level at {@code selectUrl}, the others to their listing at
+     * {@code listUrl} with search type b (starts with).
+     */
+    private void addAlphabet(Model model, AlphabetIndexService.Kind kind, int lang, String chars,
+                             String selectUrl, String listUrl) {
+        model.addAttribute("content", "sopds_selectchars");
+        model.addAttribute("select_url", selectUrl);
+        model.addAttribute("list_url", listUrl);
+        model.addAttribute("lang_code", lang);
+        model.addAttribute("chars", chars);
+        model.addAttribute("groups", alphabetIndex.groups(kind, lang, chars));
+        model.addAttribute("total", alphabetIndex.count(kind, lang));
+    }
+
     @GetMapping("/searchbooks")
     public String searchBooks(
             @RequestParam String searchtype,
-            @RequestParam String searchterms,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "") String searchterms,
+            @RequestParam(required = false) String cursor,
             Model model) {
 
         addDefaultAttributes(model);
@@ -97,11 +159,99 @@ public class WebController {
         model.addAttribute("current", "book");
         model.addAttribute("searchtype", searchtype);
         model.addAttribute("searchterms", searchterms);
-        model.addAttribute("page", page);
+
+        BookCursorPage result;
+        try {
+            result = findBooks(searchtype, searchterms, cursor);
+        } catch (IllegalArgumentException e) {
+            // Malformed cursor or id: start over instead of failing the page
+            log.debug("Invalid book search {}={} cursor {}", searchtype, searchterms, cursor);
+            result = new BookCursorPage(List.of(), null);
+        }
+        model.addAttribute("books", result.getBooks());
+        model.addAttribute("next_cursor", result.getNextCursor());
+
+        return "sopds_main";
+    }
+
+    /**
+     * Authors by name: search type b (starts with) for the alphabet groups, m (contains) for the search form
+     */
+    @GetMapping("/searchauthors")
+    public String searchAuthors(
+            @RequestParam(defaultValue = "m") String searchtype,
+            @RequestParam(defaultValue = "") String searchterms,
+            @RequestParam(required = false) String cursor,
+            Model model) {
+
+        addDefaultAttributes(model);
+        model.addAttribute("appTitle", "SOPDS Catalog - Search Authors");
+        model.addAttribute("content", "sopds_authors");
+        model.addAttribute("current", "author");
+        model.addAttribute("searchtype", searchtype);
+        model.addAttribute("searchterms", searchterms);
+
+        CursorPage<ListedAuthorView> result;
+        try {
+            result = catalogService.authorsByName(searchterms, "b".equals(searchtype), cursor);
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid author search {}={} cursor {}", searchtype, searchterms, cursor);
+            result = new CursorPage<>(List.of(), null);
+        }
+        model.addAttribute("authors", result.getItems());
+        model.addAttribute("next_cursor", result.getNextCursor());
 
         return "sopds_main";
     }
 
+    /**
+     * Series by name, with the search types of {@link #searchAuthors}
+     */
+    @GetMapping("/searchseries")
+    public String searchSeries(
+            @RequestParam(defaultValue = "m") String searchtype,
+            @RequestParam(defaultValue = "") String searchterms,
+            @RequestParam(required = false) String cursor,
+            Model model) {
+
+        addDefaultAttributes(model);
+        model.addAttribute("appTitle", "SOPDS Catalog - Search Series");
+        model.addAttribute("content", "sopds_series");
+        model.addAttribute("current", "series");
+        model.addAttribute("searchtype", searchtype);
+        model.addAttribute("searchterms", searchterms);
+
+        CursorPage<ListedSeriesView> result;
+        try {
+            result = catalogService.seriesByName(searchterms, "b".equals(searchtype), cursor);
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid series search {}={} cursor {}", searchtype, searchterms, cursor);
+            result = new CursorPage<>(List.of(), null);
+        }
+        model.addAttribute("series", result.getItems());
+        model.addAttribute("next_cursor", result.getNextCursor());
+
+        return "sopds_main";
+    }
+
+    /**
+     * SOPDS search types: m - ranked text search, b - title starts with, a - books of an author, s - of a series,
+     * g - of a genre, i - a single book; the terms of a/s/g/i are ids
+     */
+    private BookCursorPage findBooks(String searchtype, String searchterms, String cursor) {
+        return switch (searchtype) {
+            case "m" -> searchterms.isBlank()
+                    ? catalogService.books(cursor)
+                    : searchService.searchBooks(searchterms, cursor);
+            case "b" -> catalogService.titlePrefixBooks(searchterms, cursor);
+            case "a" -> catalogService.authorBooks(Long.parseLong(searchterms), cursor);
+            case "s" -> catalogService.seriesBooks(Long.parseLong(searchterms), cursor);
+            case "g" -> catalogService.genreBooks(Long.parseLong(searchterms), cursor);
+            case "i" -> catalogService.book(Long.parseLong(searchterms));
+            default -> new BookCursorPage(List.of(), null);
+        };
+    }
+
     @GetMapping("/error")
     public String errorPage(@RequestParam(required = false) String errormsg, Model model) {
         addDefaultAttributes(model);
@@ -9,7 +9,8 @@ import java.util.Set;
 @Entity
 @Table(name = "authors", indexes = {
         @Index(name = "idx_author_full_name", columnList = "fullName"),
-        @Index(name = "idx_author_last_name", columnList = "lastName")
+        @Index(name = "idx_author_last_name", columnList = "lastName"),
+        @Index(name = "idx_author_sort_id", columnList = "fullNameSort, id")
 })
 @Getter
 @Setter
@@ -19,7 +20,8 @@ import java.util.Set;
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authors_seq")
+    @SequenceGenerator(name = "authors_seq", sequenceName = "authors_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 255)
@@ -17,7 +17,11 @@ import java.util.Set;
         @Index(name = "idx_book_path", columnList = "path"),
         @Index(name = "idx_book_format", columnList = "format"),
         @Index(name = "idx_book_reg_date", columnList = "registerDate"),
-        @Index(name = "idx_book_available", columnList = "available")
+        @Index(name = "idx_book_available", columnList = "available"),
+        @Index(name = "idx_book_md5", columnList = "md5"),
+        @Index(name = "idx_book_reg_date_id", columnList = "registerDate, id"),
+        @Index(name = "idx_book_series", columnList = "series_id, seriesNumber"),
+        @Index(name = "idx_book_title_sort_id", columnList = "titleSort, id")
 })
 @Getter
 @Setter
@@ -27,7 +31,8 @@ import java.util.Set;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 500)
@@ -36,9 +41,6 @@ public class Book {
     @Column(length = 500)
     private String titleSort;
 
-    @Column(columnDefinition = "TEXT")
-    private String annotation;
-
     @Column(length = 50)
     private String isbn;
 
@@ -79,12 +81,16 @@ public class Book {
     @Column(length = 32)
     private String md5;
 
+    @Column(length = 64)
+    private String cover; // key in the cover cache, SHA-256 of the image
+
     // Many-to-Many with Authors
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "book_authors",
             joinColumns = @JoinColumn(name = "book_id"),
-            inverseJoinColumns = @JoinColumn(name = "author_id")
+            inverseJoinColumns = @JoinColumn(name = "author_id"),
+            indexes = @Index(name = "idx_book_authors_author", columnList = "author_id, book_id")
     )
     @Builder.Default
     private Set<Author> authors = new HashSet<>();
@@ -94,7 +100,8 @@ public class Book {
     @JoinTable(
             name = "book_genres",
             joinColumns = @JoinColumn(name = "book_id"),
-            inverseJoinColumns = @JoinColumn(name = "genre_id")
+            inverseJoinColumns = @JoinColumn(name = "genre_id"),
+            indexes = @Index(name = "idx_book_genres_genre", columnList = "genre_id, book_id")
     )
     @Builder.Default
     private Set<Genre> genres = new HashSet<>();
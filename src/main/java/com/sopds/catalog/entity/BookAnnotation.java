@@ -0,0 +1,44 @@
+package com.sopds.catalog.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Annotation of a book, kept out of the books rows so that listings do not read it.
+ */
+@Entity
+@Table(name = "book_annotations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookAnnotation {
+
+    @Id
+    private Long bookId;
+
+    /**
+     * Shares the book's id, so a new annotation is inserted without a lookup
+     */
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String annotation;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BookAnnotation)) return false;
+        BookAnnotation other = (BookAnnotation) o;
+        return bookId != null && bookId.equals(other.getBookId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
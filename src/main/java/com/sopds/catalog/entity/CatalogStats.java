@@ -0,0 +1,59 @@
+package com.sopds.catalog.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog counters shown on the main page; the table holds the single row {@link #SINGLETON_ID}.
+ */
+@Entity
+@Table(name = "catalog_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogStats {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    /**
+     * Available books
+     */
+    @Column(nullable = false)
+    private Long books;
+
+    @Column(nullable = false)
+    private Long authors;
+
+    @Column(nullable = false)
+    private Long genres;
+
+    @Column(nullable = false)
+    private Long series;
+
+    /**
+     * End of the last completed full scan
+     */
+    private LocalDateTime lastScan;
+
+    private LocalDateTime reconciledAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CatalogStats)) return false;
+        CatalogStats stats = (CatalogStats) o;
+        return id != null && id.equals(stats.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,57 @@
+package com.sopds.catalog.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "scan_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_scan_checkpoint_run_path", columnNames = {"run_id", "path"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScanCheckpoint {
+
+    public enum Kind {
+        DIRECTORY,
+        ARCHIVE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(nullable = false, length = 1000)
+    private String path;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Kind kind;
+
+    /**
+     * Number of central directory entries of an archive that are already persisted
+     */
+    private Integer entryPosition;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean completed = false;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScanCheckpoint)) return false;
+        ScanCheckpoint checkpoint = (ScanCheckpoint) o;
+        return id != null && id.equals(checkpoint.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
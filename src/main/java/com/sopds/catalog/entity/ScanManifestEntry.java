@@ -0,0 +1,46 @@
+package com.sopds.catalog.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "scan_manifest")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScanManifestEntry {
+
+    @Id
+    @Column(length = 1000)
+    private String path;
+
+    @Column(nullable = false)
+    private Long fileSize;
+
+    @Column(nullable = false)
+    private Long lastModified; // epoch millis
+
+    private Integer entryCount;
+
+    private Long entryCrc;
+
+    @Column(nullable = false)
+    private LocalDateTime scanDate;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScanManifestEntry)) return false;
+        ScanManifestEntry entry = (ScanManifestEntry) o;
+        return path != null && path.equals(entry.getPath());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
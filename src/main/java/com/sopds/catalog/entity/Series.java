@@ -8,7 +8,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "series", indexes = {
-        @Index(name = "idx_series_name", columnList = "name")
+        @Index(name = "idx_series_name", columnList = "name"),
+        @Index(name = "idx_series_sort_id", columnList = "nameSort, id")
 })
 @Getter
 @Setter
@@ -18,7 +19,8 @@ import java.util.List;
 public class Series {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "series_seq")
+    @SequenceGenerator(name = "series_seq", sequenceName = "series_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 500)
@@ -2,13 +2,34 @@ package com.sopds.catalog.repository;
 
 import com.sopds.catalog.entity.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
 
+    interface FeedAuthorView {
+        Long getId();
+
+        String getFullName();
+
+        String getFullNameSort();
+    }
+
+    /**
+     * An author of a name listing with the key the listing pages on
+     */
+    interface ListedAuthorView extends FeedAuthorView {
+        /**
+         * Upper-case sort name, compared in byte order
+         */
+        String getSortKey();
+    }
+
     Optional<Author> findByFullName(String fullName);
 
     Optional<Author> findByFirstNameAndMiddleNameAndLastName(
@@ -16,4 +37,63 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
             String middleName,
             String lastName
     );
-}
\ No newline at end of file
+
+    /**
+     * Authors by sort name, continuing after ({@code fullNameSort}, {@code id})
+     */
+    @Query(value = """
+            SELECT a.id AS "id", a.full_name AS "fullName", a.full_name_sort AS "fullNameSort"
+            FROM authors a
+            WHERE (a.full_name_sort, a.id) > (:fullNameSort, :id)
+            ORDER BY a.full_name_sort, a.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedAuthorView> findPageAfter(@Param("fullNameSort") String fullNameSort, @Param("id") long id,
+                                       @Param("limit") int limit);
+
+    /**
+     * Authors whose upper-case sort name starts with {@code prefix}, continuing after
+     * ({@code sortKey}, {@code id}). Keys are compared in byte order, where every key with the prefix
+     * lies in [{@code prefix}, {@code prefixEnd}), so the walk over idx_author_sort_upper_id covers only
+     * the group. The pattern must be the escaped prefix followed by {@code %}.
+     */
+    @Query(value = """
+            SELECT a.id AS "id", a.full_name AS "fullName", a.full_name_sort AS "fullNameSort",
+                   UPPER(a.full_name_sort) AS "sortKey"
+            FROM authors a
+            WHERE UPPER(a.full_name_sort) COLLATE "C" >= :prefix AND UPPER(a.full_name_sort) COLLATE "C" < :prefixEnd
+              AND UPPER(a.full_name_sort) LIKE :pattern
+              AND (UPPER(a.full_name_sort) COLLATE "C", a.id) > (:sortKey, :id)
+            ORDER BY UPPER(a.full_name_sort) COLLATE "C", a.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ListedAuthorView> findByNamePrefixAfter(@Param("prefix") String prefix, @Param("prefixEnd") String prefixEnd,
+                                                 @Param("pattern") String pattern, @Param("sortKey") String sortKey,
+                                                 @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Authors whose upper-case sort name contains the LIKE pattern, continuing after
+     * ({@code sortKey}, {@code id})
+     */
+    @Query(value = """
+            SELECT a.id AS "id", a.full_name AS "fullName", a.full_name_sort AS "fullNameSort",
+                   UPPER(a.full_name_sort) AS "sortKey"
+            FROM authors a
+            WHERE UPPER(a.full_name_sort) LIKE :pattern
+              AND (UPPER(a.full_name_sort) COLLATE "C", a.id) > (:sortKey, :id)
+            ORDER BY UPPER(a.full_name_sort) COLLATE "C", a.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ListedAuthorView> findByNameAfter(@Param("pattern") String pattern, @Param("sortKey") String sortKey,
+                                           @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Authors per sort name prefix of up to {@code depth} characters
+     */
+    @Query(value = """
+            SELECT p.prefix AS "prefix", COUNT(*) AS "count"
+            FROM (SELECT SUBSTRING(a.full_name_sort, 1, :depth) AS prefix FROM authors a) p
+            GROUP BY p.prefix
+            """, nativeQuery = true)
+    List<PrefixCountView> countPrefixes(@Param("depth") int depth);
+}
@@ -0,0 +1,26 @@
+package com.sopds.catalog.repository;
+
+import com.sopds.catalog.entity.BookAnnotation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookAnnotationRepository extends JpaRepository<BookAnnotation, Long> {
+
+    interface AnnotationView {
+        Long getBookId();
+
+        String getAnnotation();
+    }
+
+    /**
+     * Annotations of the books of one page
+     */
+    @Query("SELECT a.bookId AS bookId, a.annotation AS annotation FROM BookAnnotation a WHERE a.bookId IN :bookIds")
+    List<AnnotationView> findAnnotationsOfBooks(@Param("bookIds") Collection<Long> bookIds);
+}
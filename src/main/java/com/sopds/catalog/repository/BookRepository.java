@@ -2,15 +2,98 @@ package com.sopds.catalog.repository;
 
 import com.sopds.catalog.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    interface PathView {
+        String getPath();
+    }
+
+    /**
+     * One book of a catalog feed page, without its collections
+     */
+    interface FeedBookView {
+        Long getId();
+
+        String getTitle();
+
+        String getTitleSort();
+
+        String getLang();
+
+        String getFormat();
+
+        String getPath();
+
+        String getFilename();
+
+        BigDecimal getFilesize();
+
+        LocalDateTime getRegisterDate();
+
+        LocalDateTime getUpdateDate();
+
+        Long getSeriesId();
+
+        String getSeriesName();
+
+        Integer getSeriesNumber();
+
+        String getCover();
+    }
+
+    /**
+     * A search hit with its relevance
+     */
+    interface SearchBookView extends FeedBookView {
+        /**
+         * Rank rounded to six decimals, so the cursor can compare it exactly
+         */
+        BigDecimal getScore();
+    }
+
+    /**
+     * A book of an alphabet group with the key the group pages on
+     */
+    interface PrefixBookView extends FeedBookView {
+        /**
+         * Upper-case sort title, compared in byte order
+         */
+        String getSortKey();
+    }
+
+    /**
+     * An author or genre of one of the books of a page
+     */
+    interface BookLinkView {
+        Long getBookId();
+
+        Long getId();
+
+        String getCode();
+
+        String getName();
+    }
+
+    String FEED_COLUMNS = """
+            b.id AS "id", b.title AS "title", b.title_sort AS "titleSort", b.lang AS "lang",
+            b.format AS "format", b.path AS "path", b.filename AS "filename", b.filesize AS "filesize",
+            b.register_date AS "registerDate", b.update_date AS "updateDate",
+            s.id AS "seriesId", s.name AS "seriesName", b.series_number AS "seriesNumber", b.cover AS "cover"
+            """;
+
     Optional<Book> findByPath(String path);
 
     Optional<Book> findByMd5(String md5);
@@ -22,4 +105,207 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByPathAndFilename(@Param("path") String path, @Param("filename") String filename);
 
     boolean existsByPath(String path);
+
+    @Query("SELECT b.path FROM Book b WHERE b.path IN :paths")
+    List<String> findStoredPaths(@Param("paths") Collection<String> paths);
+
+    List<PathView> findByPathStartingWith(String prefix);
+
+    /**
+     * The book with the lowest id in each group of equal MD5 hashes is the original, all others are
+     * duplicates. A row is written only when its flag is wrong, which flips it.
+     *
+     * @return number of books whose flag changed
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE books SET is_duplicate = NOT is_duplicate
+            WHERE md5 IS NOT NULL
+              AND is_duplicate = (id IN (SELECT MIN(id) FROM books WHERE md5 IS NOT NULL GROUP BY md5))
+            """, nativeQuery = true)
+    int updateDuplicateFlags();
+
+    /**
+     * All books by title, continuing after ({@code titleSort}, {@code id})
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS + """
+            FROM books b LEFT JOIN series s ON s.id = b.series_id
+            WHERE b.available = TRUE AND (b.title_sort, b.id) > (:titleSort, :id)
+            ORDER BY b.title_sort, b.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedBookView> findAllByTitleAfter(@Param("titleSort") String titleSort, @Param("id") long id,
+                                           @Param("limit") int limit);
+
+    /**
+     * Available books per title prefix of up to {@code depth} characters
+     */
+    @Query(value = """
+            SELECT p.prefix AS "prefix", COUNT(*) AS "count"
+            FROM (SELECT SUBSTRING(b.title_sort, 1, :depth) AS prefix FROM books b WHERE b.available = TRUE) p
+            GROUP BY p.prefix
+            """, nativeQuery = true)
+    List<PrefixCountView> countTitlePrefixes(@Param("depth") int depth);
+
+    @Query(value = "SELECT " + FEED_COLUMNS + """
+            FROM books b LEFT JOIN series s ON s.id = b.series_id
+            WHERE b.id = :id AND b.available = TRUE
+            """, nativeQuery = true)
+    List<FeedBookView> findViewById(@Param("id") long id);
+
+    /**
+     * Newest books first, continuing after ({@code registerDate}, {@code id})
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS + """
+            FROM books b LEFT JOIN series s ON s.id = b.series_id
+            WHERE b.available = TRUE AND (b.register_date, b.id) < (:registerDate, :id)
+            ORDER BY b.register_date DESC, b.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedBookView> findNewestBefore(@Param("registerDate") LocalDateTime registerDate, @Param("id") long id,
+                                        @Param("limit") int limit);
+
+    /**
+     * Books of one author by title, continuing after ({@code titleSort}, {@code id})
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS + """
+            FROM book_authors ba
+            JOIN books b ON b.id = ba.book_id
+            LEFT JOIN series s ON s.id = b.series_id
+            WHERE ba.author_id = :authorId AND b.available = TRUE AND (b.title_sort, b.id) > (:titleSort, :id)
+            ORDER BY b.title_sort, b.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedBookView> findByAuthorAfter(@Param("authorId") long authorId, @Param("titleSort") String titleSort,
+                                         @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Books of one series by number, unnumbered first, continuing after ({@code number}, {@code id})
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS + """
+            FROM books b LEFT JOIN series s ON s.id = b.series_id
+            WHERE b.series_id = :seriesId AND b.available = TRUE
+              AND (COALESCE(b.series_number, 0), b.id) > (:number, :id)
+            ORDER BY COALESCE(b.series_number, 0), b.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedBookView> findBySeriesAfter(@Param("seriesId") long seriesId, @Param("number") int number,
+                                         @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Books of one genre, newest first. Genres hold up to a large share of the library, so the
+     * page is read straight from the (genre_id, book_id) index instead of sorting the genre by title.
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS + """
+            FROM book_genres bg
+            JOIN books b ON b.id = bg.book_id
+            LEFT JOIN series s ON s.id = b.series_id
+            WHERE bg.genre_id = :genreId AND bg.book_id < :id AND b.available = TRUE
+            ORDER BY bg.book_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedBookView> findByGenreBefore(@Param("genreId") long genreId, @Param("id") long id,
+                                         @Param("limit") int limit);
+
+    /**
+     * Books whose title matches the LIKE pattern, case-insensitive, continuing after ({@code titleSort}, {@code id}).
+     * The pattern must already be lower case and end with {@code %}.
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS + """
+            FROM books b LEFT JOIN series s ON s.id = b.series_id
+            WHERE b.available = TRUE AND LOWER(b.title) LIKE :pattern AND (b.title_sort, b.id) > (:titleSort, :id)
+            ORDER BY b.title_sort, b.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedBookView> findByTitleAfter(@Param("pattern") String pattern, @Param("titleSort") String titleSort,
+                                        @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Books of one alphabet group: the upper-case sort title starts with {@code prefix}, continuing
+     * after ({@code sortKey}, {@code id}). Keys are compared in byte order, where every key with the
+     * prefix lies in [{@code prefix}, {@code prefixEnd}), so the walk over idx_book_title_upper_id
+     * starts at the group and stops at its end. The first page starts at the prefix itself; the
+     * pattern must be the escaped prefix followed by {@code %}.
+     */
+    @Query(value = """
+            SELECT
+            """ + FEED_COLUMNS + """
+                , UPPER(b.title_sort) AS "sortKey"
+            FROM books b LEFT JOIN series s ON s.id = b.series_id
+            WHERE b.available = TRUE
+              AND UPPER(b.title_sort) COLLATE "C" >= :prefix AND UPPER(b.title_sort) COLLATE "C" < :prefixEnd
+              AND UPPER(b.title_sort) LIKE :pattern
+              AND (UPPER(b.title_sort) COLLATE "C", b.id) > (:sortKey, :id)
+            ORDER BY UPPER(b.title_sort) COLLATE "C", b.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<PrefixBookView> findByTitlePrefixAfter(@Param("prefix") String prefix, @Param("prefixEnd") String prefixEnd,
+                                                @Param("pattern") String pattern, @Param("sortKey") String sortKey,
+                                                @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Ranked search, PostgreSQL only. Candidates are full-text matches plus trigram matches of the
+     * title and of author names, each found through its own GIN index; they are ranked by full-text
+     * rank plus title and best author similarity, continuing after ({@code score}, {@code id}).
+     * The score is rounded to a fixed scale in SQL, so the value a cursor carries compares exactly
+     * with the one recomputed for the next page.
+     */
+    @Query(value = """
+            WITH q AS (SELECT websearch_to_tsquery('russian', :query) AS tsq, lower(:query) AS text),
+            hits AS (
+                SELECT b.id FROM books b, q WHERE b.search_vector @@ q.tsq
+                UNION
+                SELECT b.id FROM books b, q WHERE lower(b.title) % q.text
+                UNION
+                SELECT ba.book_id FROM authors a JOIN book_authors ba ON ba.author_id = a.id, q
+                WHERE lower(a.full_name) % q.text
+            ),
+            ranked AS (
+                SELECT h.id, ROUND(CAST(ts_rank_cd(b.search_vector, q.tsq)
+                        + similarity(lower(b.title), q.text)
+                        + COALESCE((SELECT MAX(similarity(lower(a.full_name), q.text))
+                                    FROM book_authors ba JOIN authors a ON a.id = ba.author_id
+                                    WHERE ba.book_id = h.id), 0) AS numeric), 6) AS score
+                FROM hits h JOIN books b ON b.id = h.id, q
+            )
+            SELECT
+            """ + FEED_COLUMNS + """
+                , r.score AS "score"
+            FROM ranked r JOIN books b ON b.id = r.id LEFT JOIN series s ON s.id = b.series_id
+            WHERE b.available = TRUE AND (r.score < :score OR (r.score = :score AND b.id > :id))
+            ORDER BY r.score DESC, b.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<SearchBookView> searchRanked(@Param("query") String query, @Param("score") BigDecimal score,
+                                      @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Recomputes the search vectors of the given books, PostgreSQL only
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE books SET search_vector = book_search_vector(id) WHERE id IN (:ids)", nativeQuery = true)
+    int refreshSearchVectors(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Authors of all books of a page in one statement
+     */
+    @Query(value = """
+            SELECT ba.book_id AS "bookId", a.id AS "id", NULL AS "code", a.full_name AS "name"
+            FROM book_authors ba JOIN authors a ON a.id = ba.author_id
+            WHERE ba.book_id IN (:bookIds)
+            ORDER BY a.full_name_sort
+            """, nativeQuery = true)
+    List<BookLinkView> findAuthorsOfBooks(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Genres of all books of a page in one statement
+     */
+    @Query(value = """
+            SELECT bg.book_id AS "bookId", g.id AS "id", g.code AS "code", g.name_ru AS "name"
+            FROM book_genres bg JOIN genres g ON g.id = bg.genre_id
+            WHERE bg.book_id IN (:bookIds)
+            """, nativeQuery = true)
+    List<BookLinkView> findGenresOfBooks(@Param("bookIds") Collection<Long> bookIds);
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.sopds.catalog.repository;
+
+import com.sopds.catalog.entity.CatalogStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CatalogStatsRepository extends JpaRepository<CatalogStats, Integer> {
+
+    /**
+     * Adds to the counters in the caller's transaction; the row lock is held until it ends
+     */
+    @Modifying
+    @Query("""
+            UPDATE CatalogStats s SET s.books = s.books + :books, s.authors = s.authors + :authors,
+                s.series = s.series + :series
+            WHERE s.id = :id
+            """)
+    int increment(@Param("id") int id, @Param("books") long books, @Param("authors") long authors,
+                  @Param("series") long series);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CatalogStats s SET s.lastScan = :lastScan WHERE s.id = :id")
+    int updateLastScan(@Param("id") int id, @Param("lastScan") LocalDateTime lastScan);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CatalogStats s WHERE s.id = :id")
+    Optional<CatalogStats> findForUpdate(@Param("id") int id);
+}
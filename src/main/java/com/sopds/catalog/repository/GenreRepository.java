@@ -4,10 +4,13 @@ import com.sopds.catalog.entity.Genre;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GenreRepository extends JpaRepository<Genre, Long> {
 
     Optional<Genre> findByCode(String code);
-}
\ No newline at end of file
+
+    List<Genre> findAllByOrderByNameRuAsc();
+}
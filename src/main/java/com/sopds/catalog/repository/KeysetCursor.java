@@ -0,0 +1,44 @@
+package com.sopds.catalog.repository;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated listing: the sort key and id of the last row of the previous
+ * page. The next page continues after that (sort key, id) pair, so it costs the same at any
+ * depth and does not shift when rows are added before it.
+ * <p>
+ * Clients only see the opaque {@link #encode() encoded} form.
+ */
+@Value
+public class KeysetCursor {
+
+    private static final char SEPARATOR = '\n';
+
+    String key;
+
+    long id;
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String value) {
+        String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        int separator = decoded.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor: " + value);
+        }
+        try {
+            return new KeysetCursor(decoded.substring(0, separator), Long.parseLong(decoded.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + value, e);
+        }
+    }
+}
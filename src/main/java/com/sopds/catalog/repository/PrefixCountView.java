@@ -0,0 +1,10 @@
+package com.sopds.catalog.repository;
+
+/**
+ * Number of rows whose sort key starts with a prefix, for the alphabet navigation index.
+ */
+public interface PrefixCountView {
+    String getPrefix();
+
+    long getCount();
+}
@@ -0,0 +1,29 @@
+package com.sopds.catalog.repository;
+
+import com.sopds.catalog.entity.ScanCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ScanCheckpointRepository extends JpaRepository<ScanCheckpoint, Long> {
+
+    List<ScanCheckpoint> findByRunId(Long runId);
+
+    long countByRunIdAndKindAndCompleted(Long runId, ScanCheckpoint.Kind kind, Boolean completed);
+
+    List<ScanCheckpoint> findByRunIdAndKindAndCompleted(Long runId, ScanCheckpoint.Kind kind, Boolean completed);
+
+    Optional<ScanCheckpoint> findByRunIdAndPath(Long runId, String path);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ScanCheckpoint c WHERE c.runId = :runId")
+    void deleteByRunId(@Param("runId") Long runId);
+}
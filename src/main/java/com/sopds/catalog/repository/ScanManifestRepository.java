@@ -0,0 +1,17 @@
+package com.sopds.catalog.repository;
+
+import com.sopds.catalog.entity.ScanManifestEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScanManifestRepository extends JpaRepository<ScanManifestEntry, String>,
+        ScanManifestRepositoryCustom {
+
+    /**
+     * Entries of every file below a directory; the prefix ends with the path separator
+     */
+    List<ScanManifestEntry> findByPathStartingWith(String prefix);
+}
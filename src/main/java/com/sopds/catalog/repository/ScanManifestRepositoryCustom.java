@@ -0,0 +1,13 @@
+package com.sopds.catalog.repository;
+
+import com.sopds.catalog.entity.ScanManifestEntry;
+
+import java.util.List;
+
+public interface ScanManifestRepositoryCustom {
+
+    /**
+     * Insert or update manifest rows with a single JDBC batch
+     */
+    void upsertAll(List<ScanManifestEntry> entries);
+}
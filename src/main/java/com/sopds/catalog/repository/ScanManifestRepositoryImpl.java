@@ -0,0 +1,63 @@
+package com.sopds.catalog.repository;
+
+import com.sopds.catalog.entity.ScanManifestEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ScanManifestRepositoryImpl implements ScanManifestRepositoryCustom {
+
+    private static final String POSTGRES_UPSERT_SQL = """
+            INSERT INTO scan_manifest (path, file_size, last_modified, entry_count, entry_crc, scan_date)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (path) DO UPDATE SET
+                file_size = EXCLUDED.file_size,
+                last_modified = EXCLUDED.last_modified,
+                entry_count = EXCLUDED.entry_count,
+                entry_crc = EXCLUDED.entry_crc,
+                scan_date = EXCLUDED.scan_date
+            """;
+
+    /**
+     * H2 (embedded benchmark database) has no ON CONFLICT ... DO UPDATE
+     */
+    private static final String H2_UPSERT_SQL = """
+            MERGE INTO scan_manifest (path, file_size, last_modified, entry_count, entry_crc, scan_date)
+            KEY (path) VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String upsertSql;
+
+    @Override
+    public void upsertAll(List<ScanManifestEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsertSql(), entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.getPath());
+            ps.setLong(2, entry.getFileSize());
+            ps.setLong(3, entry.getLastModified());
+            ps.setObject(4, entry.getEntryCount(), Types.INTEGER);
+            ps.setObject(5, entry.getEntryCrc(), Types.BIGINT);
+            ps.setTimestamp(6, Timestamp.valueOf(entry.getScanDate() != null
+                    ? entry.getScanDate() : LocalDateTime.now()));
+        });
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            upsertSql = "H2".equalsIgnoreCase(database) ? H2_UPSERT_SQL : POSTGRES_UPSERT_SQL;
+        }
+        return upsertSql;
+    }
+}
@@ -0,0 +1,24 @@
+package com.sopds.catalog.repository;
+
+import com.sopds.catalog.entity.ScanRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ScanRunRepository extends JpaRepository<ScanRun, Long> {
+
+    Optional<ScanRun> findFirstByStatusInOrderByIdDesc(Collection<ScanRun.Status> statuses);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ScanRun r SET r.checkpointAt = :checkpointAt WHERE r.id = :id")
+    void updateCheckpointAt(@Param("id") Long id, @Param("checkpointAt") LocalDateTime checkpointAt);
+}
@@ -2,12 +2,89 @@ package com.sopds.catalog.repository;
 
 import com.sopds.catalog.entity.Series;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SeriesRepository extends JpaRepository<Series, Long> {
 
+    interface FeedSeriesView {
+        Long getId();
+
+        String getName();
+
+        String getNameSort();
+    }
+
+    /**
+     * A series of a name listing with the key the listing pages on
+     */
+    interface ListedSeriesView extends FeedSeriesView {
+        /**
+         * Upper-case sort name, compared in byte order
+         */
+        String getSortKey();
+    }
+
     Optional<Series> findByName(String name);
-}
\ No newline at end of file
+
+    /**
+     * Series by sort name, continuing after ({@code nameSort}, {@code id})
+     */
+    @Query(value = """
+            SELECT s.id AS "id", s.name AS "name", s.name_sort AS "nameSort"
+            FROM series s
+            WHERE (s.name_sort, s.id) > (:nameSort, :id)
+            ORDER BY s.name_sort, s.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<FeedSeriesView> findPageAfter(@Param("nameSort") String nameSort, @Param("id") long id,
+                                       @Param("limit") int limit);
+
+    /**
+     * Series whose upper-case sort name starts with {@code prefix}, continuing after
+     * ({@code sortKey}, {@code id}). Keys are compared in byte order, where every key with the prefix
+     * lies in [{@code prefix}, {@code prefixEnd}), so the walk over idx_series_sort_upper_id covers only the
+     * group. The pattern must be the escaped prefix followed by {@code %}.
+     */
+    @Query(value = """
+            SELECT s.id AS "id", s.name AS "name", s.name_sort AS "nameSort", UPPER(s.name_sort) AS "sortKey"
+            FROM series s
+            WHERE UPPER(s.name_sort) COLLATE "C" >= :prefix AND UPPER(s.name_sort) COLLATE "C" < :prefixEnd
+              AND UPPER(s.name_sort) LIKE :pattern
+              AND (UPPER(s.name_sort) COLLATE "C", s.id) > (:sortKey, :id)
+            ORDER BY UPPER(s.name_sort) COLLATE "C", s.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ListedSeriesView> findByNamePrefixAfter(@Param("prefix") String prefix, @Param("prefixEnd") String prefixEnd,
+                                                 @Param("pattern") String pattern, @Param("sortKey") String sortKey,
+                                                 @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Series whose upper-case sort name contains the LIKE pattern, continuing after
+     * ({@code sortKey}, {@code id})
+     */
+    @Query(value = """
+            SELECT s.id AS "id", s.name AS "name", s.name_sort AS "nameSort", UPPER(s.name_sort) AS "sortKey"
+            FROM series s
+            WHERE UPPER(s.name_sort) LIKE :pattern AND (UPPER(s.name_sort) COLLATE "C", s.id) > (:sortKey, :id)
+            ORDER BY UPPER(s.name_sort) COLLATE "C", s.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ListedSeriesView> findByNameAfter(@Param("pattern") String pattern, @Param("sortKey") String sortKey,
+                                           @Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Series per sort name prefix of up to {@code depth} characters
+     */
+    @Query(value = """
+            SELECT p.prefix AS "prefix", COUNT(*) AS "count"
+            FROM (SELECT SUBSTRING(s.name_sort, 1, :depth) AS prefix FROM series s) p
+            GROUP BY p.prefix
+            """, nativeQuery = true)
+    List<PrefixCountView> countPrefixes(@Param("depth") int depth);
+}
@@ -0,0 +1,158 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.OpdsConfiguration;
+import com.sopds.catalog.repository.AuthorRepository;
+import com.sopds.catalog.repository.BookRepository;
+import com.sopds.catalog.repository.PrefixCountView;
+import com.sopds.catalog.repository.SeriesRepository;
+import com.sopds.catalog.service.catalog.PrefixCount;
+import com.sopds.catalog.service.catalog.PrefixTree;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory alphabet navigation of books, authors and series: item counts per alphabet and per
+ * sort key prefix, so every drill-down level is answered from memory instead of a
+ * {@code GROUP BY substring(...)} over the whole table.
+ * <p>
+ * The counts are loaded once at startup, before the startup scan, and then kept current by the
+ * scanner: changes recorded inside a transaction are applied when it commits and dropped when
+ * it rolls back.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlphabetIndexService {
+
+    public enum Kind {
+        BOOK, AUTHOR, SERIES
+    }
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final SeriesRepository seriesRepository;
+    private final OpdsConfiguration config;
+
+    private volatile Map<Kind, PrefixTree> trees = emptyTrees(1);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Recounts all prefixes from the database, one grouped query per kind.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        int depth = config.getAlphabetDepth();
+        Map<Kind, PrefixTree> loaded = emptyTrees(depth);
+        load(loaded.get(Kind.BOOK), bookRepository.countTitlePrefixes(depth));
+        load(loaded.get(Kind.AUTHOR), authorRepository.countPrefixes(depth));
+        load(loaded.get(Kind.SERIES), seriesRepository.countPrefixes(depth));
+        trees = loaded;
+        log.info("Alphabet index loaded in {} ms: {} books, {} authors, {} series",
+                System.currentTimeMillis() - start, loaded.get(Kind.BOOK).count(""),
+                loaded.get(Kind.AUTHOR).count(""), loaded.get(Kind.SERIES).count(""));
+    }
+
+    /**
+     * Groups one character longer than {@code chars}
+     *
+     * @param alphabet SOPDS alphabet code, applied at the top level only; 0 for all alphabets
+     */
+    public List<PrefixCount> groups(Kind kind, int alphabet, String chars) {
+        return trees.get(kind).children(chars != null ? chars : "", alphabet, config.getSplitItems());
+    }
+
+    public long count(Kind kind, int alphabet) {
+        return trees.get(kind).countAlphabet(alphabet);
+    }
+
+    /**
+     * Records a new item
+     */
+    public void added(Kind kind, String sortKey) {
+        changed(kind, null, sortKey);
+    }
+
+    /**
+     * Records a changed sort key; null stands for an item that was not, or is no longer, counted
+     */
+    public void changed(Kind kind, String oldSortKey, String newSortKey) {
+        if (oldSortKey != null && oldSortKey.equals(newSortKey)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(List.of(new Change(kind, oldSortKey, newSortKey)));
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(new Change(kind, oldSortKey, newSortKey));
+    }
+
+    private synchronized void apply(List<Change> changes) {
+        Map<Kind, PrefixTree> current = trees;
+        for (Change change : changes) {
+            PrefixTree tree = current.get(change.kind());
+            if (change.oldSortKey() != null) {
+                tree.add(change.oldSortKey(), -1);
+            }
+            if (change.newSortKey() != null) {
+                tree.add(change.newSortKey(), 1);
+            }
+        }
+    }
+
+    private static void load(PrefixTree tree, List<PrefixCountView> counts) {
+        for (PrefixCountView count : counts) {
+            tree.add(count.getPrefix(), count.getCount());
+        }
+    }
+
+    private static Map<Kind, PrefixTree> emptyTrees(int depth) {
+        Map<Kind, PrefixTree> trees = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            trees.put(kind, new PrefixTree(depth));
+        }
+        return trees;
+    }
+
+    private record Change(Kind kind, String oldSortKey, String newSortKey) {
+    }
+
+    /**
+     * Changes of one transaction, applied only if it commits
+     */
+    private class PendingChanges implements TransactionSynchronization {
+        private final List<Change> changes = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            apply(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AlphabetIndexService.this);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.ScannerConfiguration;
+import com.sopds.catalog.entity.Book;
+import com.sopds.catalog.service.download.BookFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Resolves {@link Book#getPath()} against the library root and opens book content for download.
+ * <p>
+ * Books inside archives are stored as {@code archive.zip/entry}, so the path is walked from the
+ * root until a segment is a regular file: that is either the book itself or its archive.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookFileService {
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "fb2", "application/x-fictionbook+xml",
+            "epub", "application/epub+zip",
+            "pdf", "application/pdf",
+            "djvu", "image/vnd.djvu",
+            "mobi", "application/x-mobipocket-ebook",
+            "zip", "application/zip"
+    );
+
+    private final ScannerConfiguration config;
+
+    public Optional<BookFile> locate(Book book) {
+        Path root = Paths.get(config.getRootPath()).toAbsolutePath().normalize();
+        Path file = root.resolve(book.getPath()).normalize();
+        if (!file.startsWith(root)) {
+            log.warn("Book {} points outside the library: {}", book.getId(), book.getPath());
+            return Optional.empty();
+        }
+
+        try {
+            Path current = root;
+            Path relative = root.relativize(file);
+            for (int i = 0; i < relative.getNameCount(); i++) {
+                current = current.resolve(relative.getName(i));
+                BasicFileAttributes attrs = Files.readAttributes(current, BasicFileAttributes.class);
+                if (!attrs.isRegularFile()) {
+                    continue;
+                }
+                long lastModified = attrs.lastModifiedTime().toMillis();
+                if (i == relative.getNameCount() - 1) {
+                    return Optional.of(new BookFile(current, null, attrs.size(), lastModified));
+                }
+                // Entry names always use '/', whatever the platform separator is
+                String entryName = relative.subpath(i + 1, relative.getNameCount()).toString()
+                        .replace(relative.getFileSystem().getSeparator(), "/");
+                return findEntry(current, entryName, lastModified);
+            }
+        } catch (IOException e) {
+            log.debug("Book file not found: {}", file, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Opens the content of a loose file or an archive entry
+     */
+    public InputStream open(BookFile bookFile) throws IOException {
+        return bookFile.isArchiveEntry() ? openEntry(bookFile) : Files.newInputStream(bookFile.getFile());
+    }
+
+    /**
+     * Opens an archive entry. The returned stream closes the archive when it is closed.
+     */
+    public InputStream openEntry(BookFile bookFile) throws IOException {
+        ZipFile zip = openArchive(bookFile.getFile());
+        try {
+            ZipEntry entry = zip.getEntry(bookFile.getEntryName());
+            if (entry == null) {
+                throw new IOException("Entry " + bookFile.getEntryName() + " not found in " + bookFile.getFile());
+            }
+            InputStream in = zip.getInputStream(entry);
+            return new FilterInputStream(in) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zip.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    public String contentType(String format) {
+        return format != null
+                ? CONTENT_TYPES.getOrDefault(format.toLowerCase(), "application/octet-stream")
+                : "application/octet-stream";
+    }
+
+    private Optional<BookFile> findEntry(Path archive, String entryName, long lastModified) throws IOException {
+        try (ZipFile zip = openArchive(archive)) {
+            ZipEntry entry = zip.getEntry(entryName);
+            if (entry == null || entry.isDirectory()) {
+                return Optional.empty();
+            }
+            return Optional.of(new BookFile(archive, entryName, entry.getSize(), lastModified));
+        }
+    }
+
+    private ZipFile openArchive(Path archive) throws IOException {
+        return new ZipFile(archive.toFile(), Charset.forName(config.getZipEncoding()));
+    }
+}
@@ -3,32 +3,80 @@ package com.sopds.catalog.service;
 import com.sopds.catalog.config.ScannerConfiguration;
 import com.sopds.catalog.entity.Author;
 import com.sopds.catalog.entity.Book;
+import com.sopds.catalog.entity.BookAnnotation;
 import com.sopds.catalog.entity.Genre;
+import com.sopds.catalog.entity.ScanManifestEntry;
+import com.sopds.catalog.entity.ScanRun;
 import com.sopds.catalog.entity.Series;
 import com.sopds.catalog.repository.AuthorRepository;
+import com.sopds.catalog.repository.BookAnnotationRepository;
 import com.sopds.catalog.repository.BookRepository;
 import com.sopds.catalog.repository.GenreRepository;
+import com.sopds.catalog.repository.ScanManifestRepository;
 import com.sopds.catalog.repository.SeriesRepository;
+import com.sopds.catalog.service.catalog.CatalogChangeEvent;
 import com.sopds.catalog.service.parser.Fb2Parser;
+import com.sopds.catalog.service.parser.InpxParser;
+import com.sopds.catalog.service.scanner.ArchiveProgress;
+import com.sopds.catalog.service.scanner.ArchiveRangeTracker;
+import com.sopds.catalog.service.scanner.ProcessedFile;
+import com.sopds.catalog.service.scanner.ScanDictionary;
+import com.sopds.catalog.service.scanner.ScanFormats;
+import com.sopds.catalog.service.scanner.ScanJournal;
+import com.sopds.catalog.service.scanner.ScanManifest;
+import com.sopds.catalog.service.scanner.ScanMetrics;
+import com.sopds.catalog.service.scanner.ScanPipeline;
+import com.sopds.catalog.service.scanner.ScanResult;
+import com.sopds.catalog.service.scanner.ScannedBook;
+import com.sopds.catalog.service.scanner.ScannedFile;
+import jakarta.persistence.EntityManager;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -41,23 +89,46 @@ import static org.hibernate.internal.util.StringHelper.truncate;
 public class BookScannerService {
 
     private final BookRepository bookRepository;
+    private final BookAnnotationRepository bookAnnotationRepository;
     private final AuthorRepository authorRepository;
     private final GenreRepository genreRepository;
     private final SeriesRepository seriesRepository;
+    private final ScanManifestRepository scanManifestRepository;
+    private final ScanJournalService scanJournalService;
+    private final SearchService searchService;
+    private final AlphabetIndexService alphabetIndex;
+    private final CatalogStatsService catalogStats;
+    private final CoverService coverService;
     private final ScannerConfiguration config;
     private final Fb2Parser fb2Parser;
+    private final InpxParser inpxParser;
+    private final ScanMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     private final AtomicInteger processedFiles = new AtomicInteger(0);
     private final AtomicInteger addedBooks = new AtomicInteger(0);
     private final AtomicInteger updatedBooks = new AtomicInteger(0);
+    private final AtomicInteger skippedFiles = new AtomicInteger(0);
     private final AtomicInteger errorCount = new AtomicInteger(0);
 
-    @Transactional
+    private final AtomicReference<ScanPipeline> currentPipeline = new AtomicReference<>();
+
+    private volatile ScanManifest manifest = new ScanManifest(List.of());
+    private volatile ScanDictionary dictionary = new ScanDictionary(List.of());
+    private volatile ScanJournal journal = ScanJournal.disabled(Paths.get("."));
+    /**
+     * Files of the running scan with a book or record the writer could not store; owned by the writer
+     */
+    private volatile Set<String> failedSources = new HashSet<>();
+
     public void scanLibrary() {
         log.info("Starting library scan from: {}", config.getRootPath());
 
         LocalDateTime startTime = LocalDateTime.now();
         resetCounters();
+        metrics.scanStarted();
 
         Path libraryPath = Paths.get(config.getRootPath());
 
@@ -72,11 +143,72 @@ public class BookScannerService {
             }
         }
 
+        manifest = new ScanManifest(scanManifestRepository.findAll());
+        log.info("Loaded scan manifest with {} entries", manifest.size());
+        dictionary = new ScanDictionary(genreRepository.findAll());
+        ScanJournal journal = scanJournalService.open(libraryPath);
+        this.journal = journal;
+
+        ScanPipeline pipeline = newPipeline();
+        currentPipeline.set(pipeline);
+        pipeline.start();
+
         try {
             Files.walkFileTree(libraryPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (journal.isDirectoryCompleted(dir)) {
+                        log.debug("Skipping directory completed by the resumed run: {}", dir);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    journal.directoryStarted(dir);
+                    if (!config.isInpxEnabled()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    List<Path> indexes = findInpxFiles(dir);
+                    if (indexes.isEmpty()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    for (Path inpx : indexes) {
+                        String relativePath = libraryPath.relativize(inpx).toString();
+                        if (config.isInpxSkipUnchanged() && manifest.isUnchangedSize(relativePath, Files.size(inpx))) {
+                            log.debug("Skipping unchanged INPX: {}", relativePath);
+                            skippedFiles.incrementAndGet();
+                            continue;
+                        }
+                        journal.fileSubmitted(inpx);
+                        metrics.fileDiscovered(Files.size(inpx));
+                        if (!pipeline.submit(inpx)) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                    }
+                    // Archives of an INPX collection are imported from the index, not scanned one by one
+                    journal.directoryFinished(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    processFile(file);
+                    long start = System.nanoTime();
+                    String relativePath = libraryPath.relativize(file).toString();
+                    boolean unchanged = manifest.isUnchanged(relativePath, attrs.size(), attrs.lastModifiedTime().toMillis());
+                    metrics.record(ScanMetrics.Stage.DISCOVERY, start);
+                    if (unchanged) {
+                        skippedFiles.incrementAndGet();
+                        return FileVisitResult.CONTINUE;
+                    }
+                    journal.fileSubmitted(file);
+                    metrics.fileDiscovered(attrs.size());
+                    return pipeline.submit(file) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    if (exc != null) {
+                        log.warn("Failed to list directory: {}", dir, exc);
+                        errorCount.incrementAndGet();
+                    }
+                    journal.directoryFinished(dir);
                     return FileVisitResult.CONTINUE;
                 }
 
@@ -84,66 +216,239 @@ public class BookScannerService {
                 public FileVisitResult visitFileFailed(Path file, IOException exc) {
                     log.warn("Failed to access file: {}", file, exc);
                     errorCount.incrementAndGet();
-                    return FileVisitResult.CONTINUE;
+                    return pipeline.isAborted() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
                 }
             });
-
-            LocalDateTime endTime = LocalDateTime.now();
-            log.info("Library scan completed in {} seconds",
-                    java.time.Duration.between(startTime, endTime).getSeconds());
-            log.info("Statistics - Processed: {}, Added: {}, Updated: {}, Errors: {}",
-                    processedFiles.get(), addedBooks.get(), updatedBooks.get(), errorCount.get());
-
         } catch (IOException e) {
             log.error("Error during library scan", e);
+            pipeline.abort();
+        } finally {
+            metrics.discoveryFinished();
+            pipeline.finish();
+            currentPipeline.set(null);
+            metrics.scanFinished();
+            // An aborted run keeps its checkpoints and is resumed by the next scan
+            scanJournalService.finish(journal.getRunId(),
+                    pipeline.isAborted() ? ScanRun.Status.ABORTED : ScanRun.Status.COMPLETED);
+            if (!pipeline.isAborted()) {
+                catalogStats.scanCompleted(LocalDateTime.now());
+            }
+        }
+
+        LocalDateTime endTime = LocalDateTime.now();
+        log.info("Library scan {} in {} seconds", pipeline.isAborted() ? "aborted" : "completed",
+                Duration.between(startTime, endTime).getSeconds());
+        log.info("Statistics - Processed: {}, Added: {}, Updated: {}, Unchanged: {}, Errors: {}",
+                processedFiles.get(), addedBooks.get(), updatedBooks.get(), skippedFiles.get(), errorCount.get());
+        pipeline.logThroughput();
+        dictionary.logStatistics();
+        updateDuplicateFlags();
+    }
+
+    /**
+     * Index only the given files, archives and new directories, for example those reported by
+     * the library watcher. Unchanged files are skipped using the manifest entries of the given files
+     * and of everything below the given directories. Must not run concurrently with {@link #scanLibrary()}.
+     */
+    public void scanPaths(Collection<Path> paths) {
+        Path libraryPath = Paths.get(config.getRootPath());
+        int addedBefore = addedBooks.get();
+        // Replaced files change their md5 without adding a row, so updates count as well
+        int writtenBefore = addedBefore + updatedBooks.get();
+
+        manifest = new ScanManifest(manifestEntriesOf(libraryPath, paths));
+        dictionary = new ScanDictionary(genreRepository.findAll());
+        journal = ScanJournal.disabled(libraryPath);
+
+        metrics.scanStarted();
+        ScanPipeline pipeline = newPipeline();
+        currentPipeline.set(pipeline);
+        pipeline.start();
+
+        Map<Path, Boolean> collections = new HashMap<>();
+        try {
+            for (Path path : paths) {
+                List<Path> files;
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> walk = Files.walk(path)) {
+                        files = walk.filter(Files::isRegularFile).toList();
+                    }
+                } else if (Files.isRegularFile(path)) {
+                    files = List.of(path);
+                } else {
+                    log.debug("Changed path no longer exists: {}", path);
+                    continue;
+                }
+
+                for (Path file : files) {
+                    boolean index = "inpx".equals(getFileExtension(file.getFileName().toString()));
+                    if (!index && isInsideInpxCollection(libraryPath, file.getParent(), collections)) {
+                        // Archives of an INPX collection are imported from the index
+                        continue;
+                    }
+                    String relativePath = libraryPath.relativize(file).toString();
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (manifest.isUnchanged(relativePath, attrs.size(), attrs.lastModifiedTime().toMillis())) {
+                        continue;
+                    }
+                    metrics.fileDiscovered(attrs.size());
+                    if (!pipeline.submit(file)) {
+                        return;
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error indexing changed paths", e);
+        } finally {
+            metrics.discoveryFinished();
+            pipeline.finish();
+            currentPipeline.set(null);
+            metrics.scanFinished();
+            log.info("Indexed {} changed paths, {} books added", paths.size(), addedBooks.get() - addedBefore);
+        }
+        if (addedBooks.get() + updatedBooks.get() > writtenBefore) {
+            updateDuplicateFlags();
+        }
+    }
+
+    /**
+     * Manifest entries of the given files in one query, plus one prefix query per directory
+     */
+    private List<ScanManifestEntry> manifestEntriesOf(Path libraryPath, Collection<Path> paths) {
+        List<String> files = new ArrayList<>();
+        List<ScanManifestEntry> entries = new ArrayList<>();
+        for (Path path : paths) {
+            String relativePath = libraryPath.relativize(path).toString();
+            if (!Files.isDirectory(path)) {
+                files.add(relativePath);
+            } else if (relativePath.isEmpty()) {
+                return scanManifestRepository.findAll();
+            } else {
+                entries.addAll(scanManifestRepository.findByPathStartingWith(relativePath + File.separator));
+            }
+        }
+        if (!files.isEmpty()) {
+            entries.addAll(scanManifestRepository.findAllById(files));
+        }
+        return entries;
+    }
+
+    /**
+     * Flags exact copies by content hash with one set-based statement after the scan,
+     * instead of a hash lookup per stored book.
+     */
+    private void updateDuplicateFlags() {
+        if (!config.isScanMd5()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int changed = bookRepository.updateDuplicateFlags();
+            log.info("Duplicate flags changed on {} books in {} ms", changed, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to update duplicate flags", e);
+        }
+    }
+
+    private boolean isInsideInpxCollection(Path libraryPath, Path dir, Map<Path, Boolean> collections)
+            throws IOException {
+        if (!config.isInpxEnabled()) {
+            return false;
+        }
+        for (Path current = dir; current != null && current.startsWith(libraryPath); current = current.getParent()) {
+            Boolean collection = collections.get(current);
+            if (collection == null) {
+                collection = !findInpxFiles(current).isEmpty();
+                collections.put(current, collection);
+            }
+            if (collection) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ScanPipeline newPipeline() {
+        failedSources = new HashSet<>();
+        return new ScanPipeline(config.getScanThreads(), config.getZipThreads(), config.getScanQueueCapacity(),
+                config.getScanBatchSize(), Duration.ofSeconds(config.getScanBatchSeconds()),
+                this::processFile, this::persistBatch);
+    }
+
+    /**
+     * Abort the running scan, if any. Books already queued for the writer are still persisted; a file
+     * interrupted while parsing is read again by the next scan.
+     *
+     * @return true if a running scan was aborted
+     */
+    public boolean abortScan() {
+        ScanPipeline pipeline = currentPipeline.get();
+        if (pipeline == null) {
+            return false;
         }
+        pipeline.abort();
+        return true;
     }
 
-    private void processFile(Path filePath) {
+    private void processFile(Path filePath, Consumer<ScanResult> sink) {
         String filename = filePath.getFileName().toString().toLowerCase();
         String extension = getFileExtension(filename);
+        metrics.fileStarted(filePath);
 
         // Check if file size is within limits
+        long fileSizeBytes = 0;
         try {
-            long fileSizeBytes = Files.size(filePath);
+            fileSizeBytes = Files.size(filePath);
             long fileSizeMb = fileSizeBytes / (1024 * 1024);
 
             if (fileSizeMb > config.getMaxFileSizeMb()) {
                 log.debug("Skipping file (too large): {} ({} MB)", filePath, fileSizeMb);
+                metrics.fileParsed(fileSizeBytes);
                 return;
             }
         } catch (IOException e) {
             log.warn("Failed to get file size: {}", filePath);
         }
 
-        if (config.isZipScanEnabled() && "zip".equals(extension)) {
-            processZipFile(filePath);
-        } else if (config.getSupportedFormats().contains(extension)) {
-            processSingleFile(filePath);
+        try {
+            if (config.isZipScanEnabled() && "zip".equals(extension)) {
+                processZipFile(filePath, sink);
+            } else if (config.isInpxEnabled() && "inpx".equals(extension)) {
+                processInpxFile(filePath, sink);
+            } else if (config.getSupportedFormats().contains(extension)) {
+                processSingleFile(filePath, sink);
+            }
+        } finally {
+            metrics.fileParsed(fileSizeBytes);
         }
     }
 
-    @Transactional
-    public void processSingleFile(Path filePath) {
+    public void processSingleFile(Path filePath, Consumer<ScanResult> sink) {
         try {
             processedFiles.incrementAndGet();
 
             String relativePath = Paths.get(config.getRootPath()).relativize(filePath).toString();
             String extension = getFileExtension(filePath.getFileName().toString());
 
-            // Check if book already exists
-            Optional<Book> existingBook = bookRepository.findByPath(relativePath);
-            if (existingBook.isPresent()) {
-                log.debug("Book already exists: {}", relativePath);
-                return;
+            // Only new or changed files get here. A manifest entry with an older size or timestamp
+            // means the file was replaced; books stored before the manifest existed have no entry
+            // and are matched to their rows by the writer
+            boolean update = manifest.contains(relativePath);
+            if (update) {
+                log.debug("Book changed: {}", relativePath);
             }
 
-            // Parse metadata based on format
+            boolean processed;
             if ("fb2".equals(extension)) {
-                processFb2File(filePath, relativePath);
+                // Parse metadata based on format
+                processed = processFb2File(filePath, relativePath, update, sink);
             } else {
                 // For other formats, create basic book entry
-                processGenericFile(filePath, relativePath, extension);
+                processed = processGenericFile(filePath, relativePath, extension, update, fileMd5(filePath), sink);
+            }
+
+            if (processed) {
+                sink.accept(scannedFile(filePath, relativePath, null, null));
             }
 
         } catch (Exception e) {
@@ -152,67 +457,105 @@ public class BookScannerService {
         }
     }
 
-    private void processFb2File(Path filePath, String relativePath) {
-        try (FileInputStream fis = new FileInputStream(filePath.toFile())) {
-            Fb2Parser.Fb2Metadata metadata = fb2Parser.parse(fis);
+    private boolean processFb2File(Path filePath, String relativePath, boolean update, Consumer<ScanResult> sink) {
+        try (DigestInputStream in = digesting(new FileInputStream(filePath.toFile()))) {
+            long start = System.nanoTime();
+            Fb2Parser.Fb2Metadata metadata = fb2Parser.parse(in, coverService.scanHandler());
+            metrics.record(ScanMetrics.Stage.PARSE, start);
+            String md5 = finishMd5(in);
 
             if (metadata == null || metadata.getTitle() == null) {
                 log.warn("Failed to parse FB2 metadata: {}", filePath);
-                processGenericFile(filePath, relativePath, "fb2");
-                return;
+                return processGenericFile(filePath, relativePath, "fb2", update, md5, sink);
             }
 
-            Book book = createBookFromMetadata(metadata, filePath, relativePath, "fb2");
-            bookRepository.save(book);
-            addedBooks.incrementAndGet();
-
-            log.debug("Added book: {} by {}", book.getTitle(),
-                    book.getAuthors().isEmpty() ? "Unknown" :
-                            book.getAuthors().iterator().next().getFullName());
+            sink.accept(ScannedBook.builder()
+                    .path(relativePath)
+                    .source(relativePath)
+                    .filename(filePath.getFileName().toString())
+                    .format("fb2")
+                    .filesize(BigDecimal.valueOf(Files.size(filePath) / (1024.0 * 1024.0)))
+                    .metadata(metadata)
+                    .md5(md5)
+                    .update(update)
+                    .build());
+            return true;
 
         } catch (Exception e) {
             log.error("Error processing FB2 file: {}", filePath, e);
             errorCount.incrementAndGet();
+            return false;
         }
     }
 
-    private void processGenericFile(Path filePath, String relativePath, String format) {
+    private boolean processGenericFile(Path filePath, String relativePath, String format, boolean update,
+                                       String md5, Consumer<ScanResult> sink) {
         try {
-            String filename = filePath.getFileName().toString();
-            String title = filename.substring(0, filename.lastIndexOf('.'));
-
-            Book book = Book.builder()
-                    .title(title)
-                    .titleSort(title)
+            sink.accept(ScannedBook.builder()
                     .path(relativePath)
-                    .filename(filename)
-                    .format(format.toUpperCase())
+                    .source(relativePath)
+                    .filename(filePath.getFileName().toString())
+                    .format(format)
                     .filesize(BigDecimal.valueOf(Files.size(filePath) / (1024.0 * 1024.0)))
-                    .available(true)
-                    .build();
-
-            bookRepository.save(book);
-            addedBooks.incrementAndGet();
-
-            log.debug("Added generic book: {}", title);
+                    .md5(md5)
+                    .update(update)
+                    .build());
+            return true;
 
         } catch (Exception e) {
             log.error("Error processing generic file: {}", filePath, e);
             errorCount.incrementAndGet();
+            return false;
         }
     }
 
-    private void processZipFile(Path zipPath) {
+    private void processZipFile(Path zipPath, Consumer<ScanResult> sink) {
+        String relativePath = Paths.get(config.getRootPath()).relativize(zipPath).toString();
+
+        long openStart = System.nanoTime();
         try (ZipFile zipFile = new ZipFile(zipPath.toFile(),
                 java.nio.charset.Charset.forName(config.getZipEncoding()))) {
 
-            zipFile.stream()
-                    .filter(entry -> !entry.isDirectory())
-                    .filter(entry -> {
-                        String ext = getFileExtension(entry.getName());
-                        return config.getSupportedFormats().contains(ext);
-                    })
-                    .forEach(entry -> processZipEntry(zipFile, entry, zipPath));
+            List<? extends ZipEntry> entries = zipFile.stream().toList();
+            long entryCrc = centralDirectoryCrc(entries);
+            metrics.record(ScanMetrics.Stage.ZIP_OPEN, openStart);
+
+            if (manifest.isUnchangedArchive(relativePath, entries.size(), entryCrc)) {
+                // Only the timestamp changed, the archive holds the same entries as before
+                log.debug("Archive content unchanged: {}", relativePath);
+                skippedFiles.incrementAndGet();
+            } else {
+                // One query per changed archive instead of one per entry
+                Set<String> existingPaths = findExistingPaths(relativePath);
+                int checkpointEntries = Math.max(1, config.getScanCheckpointEntries());
+                int start = journal.archivePosition(relativePath, Files.getLastModifiedTime(zipPath).toMillis());
+                if (start > 0) {
+                    log.info("Resuming archive {} at entry {} of {}", relativePath, start, entries.size());
+                }
+
+                if (config.getZipThreads() > 1 && entries.size() - start >= config.getZipParallelEntries()) {
+                    if (!processZipRanges(zipPath, relativePath, start, entries.size(), existingPaths, sink)) {
+                        // Interrupted or a worker failed: no manifest record, the archive is read again next scan
+                        return;
+                    }
+                } else {
+                    for (int i = start; i < entries.size(); i++) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        ZipEntry entry = entries.get(i);
+                        if (isBookEntry(entry.getName(), entry.isDirectory())) {
+                            processZipEntry(entry.getName(), entry.getSize(), () -> zipFile.getInputStream(entry),
+                                    relativePath, existingPaths, sink);
+                        }
+                        if ((i + 1) % checkpointEntries == 0 && i + 1 < entries.size()) {
+                            sink.accept(new ArchiveProgress(relativePath, i + 1));
+                        }
+                    }
+                }
+            }
+
+            sink.accept(scannedFile(zipPath, relativePath, entries.size(), entryCrc));
 
         } catch (IOException e) {
             log.error("Error processing ZIP file: {}", zipPath, e);
@@ -220,95 +563,626 @@ public class BookScannerService {
         }
     }
 
-    private void processZipEntry(ZipFile zipFile, ZipEntry entry, Path zipPath) {
+    /**
+     * Splits a large archive into entry ranges that several workers of the pipeline's shared archive
+     * executor process at once. Each worker has its own commons-compress reader on its own file
+     * channel, so entry reads never contend on a shared file handle.
+     *
+     * @param from index of the first central directory entry to process
+     * @param to   number of entries in the central directory
+     * @return true if every range was processed
+     */
+    private boolean processZipRanges(Path zipPath, String relativePath, int from, int to,
+                                     Set<String> existingPaths, Consumer<ScanResult> sink) {
+        int threads = config.getZipThreads();
+        int checkpointEntries = Math.max(1, config.getScanCheckpointEntries());
+        // Several ranges per worker so a slow range does not hold back the checkpoint for long
+        int rangeSize = Math.max(1, Math.min(checkpointEntries, (to - from + threads * 4 - 1) / (threads * 4)));
+        ArchiveRangeTracker tracker = new ArchiveRangeTracker(relativePath, from, to, rangeSize, checkpointEntries, sink);
+        AtomicInteger nextRange = new AtomicInteger();
+        log.debug("Processing {} entries of {} in {} ranges on {} workers",
+                to - from, relativePath, tracker.getRangeCount(), threads);
+
+        ExecutorService executor = archiveExecutor();
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    try (SeekableByteChannel channel = Files.newByteChannel(zipPath);
+                         // Unicode extra fields off: names must decode exactly as java.util.zip decodes them
+                         org.apache.commons.compress.archivers.zip.ZipFile zip =
+                                 new org.apache.commons.compress.archivers.zip.ZipFile(
+                                         channel, zipPath.toString(), config.getZipEncoding(), false)) {
+                        List<ZipArchiveEntry> entries = Collections.list(zip.getEntries());
+                        if (entries.size() != to) {
+                            throw new IOException("Central directory has " + entries.size()
+                                    + " entries, expected " + to);
+                        }
+                        int range;
+                        while ((range = nextRange.getAndIncrement()) < tracker.getRangeCount()) {
+                            for (int i = tracker.rangeStart(range); i < tracker.rangeEnd(range); i++) {
+                                if (Thread.currentThread().isInterrupted()) {
+                                    return null;
+                                }
+                                ZipArchiveEntry entry = entries.get(i);
+                                if (isBookEntry(entry.getName(), entry.isDirectory())) {
+                                    processZipEntry(entry.getName(), entry.getSize(), () -> zip.getInputStream(entry),
+                                            relativePath, existingPaths, sink);
+                                }
+                            }
+                            tracker.completed(range);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            log.error("Error processing ZIP file: {}", zipPath, e instanceof ExecutionException ? e.getCause() : e);
+            errorCount.incrementAndGet();
+        } finally {
+            // Stops the remaining ranges of this archive only; the executor is shared
+            workers.forEach(worker -> worker.cancel(true));
+        }
+        return tracker.isComplete();
+    }
+
+    /**
+     * Archives are only parsed by the workers of the running pipeline
+     */
+    private ExecutorService archiveExecutor() {
+        return currentPipeline.get().getArchiveExecutor();
+    }
+
+    private boolean isBookEntry(String name, boolean directory) {
+        return !directory && config.getSupportedFormats().contains(getFileExtension(name));
+    }
+
+    /**
+     * Opens the content of one archive entry
+     */
+    @FunctionalInterface
+    private interface EntryContent {
+        InputStream open() throws IOException;
+    }
+
+    private void processZipEntry(String entryName, long entrySize, EntryContent content, String zipRelativePath,
+                                 Set<String> existingPaths, Consumer<ScanResult> sink) {
         try {
             processedFiles.incrementAndGet();
 
-            String relativePath = Paths.get(config.getRootPath()).relativize(zipPath).toString();
-            String entryPath = relativePath + "/" + entry.getName();
-            String extension = getFileExtension(entry.getName());
+            String entryPath = zipRelativePath + "/" + entryName;
+            String extension = getFileExtension(entryName);
 
             // Check if book already exists
-            if (bookRepository.existsByPath(entryPath)) {
+            if (existingPaths.contains(entryPath)) {
                 log.debug("Book already exists in ZIP: {}", entryPath);
                 return;
             }
 
-            // Parse FB2 files from ZIP
-            if ("fb2".equals(extension)) {
-                Fb2Parser.Fb2Metadata metadata = fb2Parser.parseFromZip(zipFile, entry);
+            // Parse FB2 files from ZIP, hashing the entry in the same pass
+            Fb2Parser.Fb2Metadata metadata = null;
+            String md5;
+            try (DigestInputStream in = digesting(content.open())) {
+                if ("fb2".equals(extension)) {
+                    long start = System.nanoTime();
+                    metadata = fb2Parser.parse(in, coverService.scanHandler());
+                    metrics.record(ScanMetrics.Stage.PARSE, start);
+                    if (metadata != null && metadata.getTitle() == null) {
+                        metadata = null;
+                    }
+                }
+                md5 = finishMd5(in);
+            }
 
-                if (metadata != null && metadata.getTitle() != null) {
-                    Book book = createBookFromMetadata(metadata, null, entryPath, "fb2");
-                    book.setFilename(entry.getName());
-                    book.setFilesize(BigDecimal.valueOf(entry.getSize() / (1024.0 * 1024.0)));
+            // Entries without metadata become generic books
+            sink.accept(ScannedBook.builder()
+                    .path(entryPath)
+                    .source(zipRelativePath)
+                    .filename(new File(entryName).getName())
+                    .format(extension)
+                    .filesize(BigDecimal.valueOf(entrySize / (1024.0 * 1024.0)))
+                    .metadata(metadata)
+                    .md5(md5)
+                    .build());
 
-                    bookRepository.save(book);
-                    addedBooks.incrementAndGet();
+        } catch (Exception e) {
+            log.error("Error processing ZIP entry: {}", entryName, e);
+            errorCount.incrementAndGet();
+        }
+    }
+
+    private void processInpxFile(Path inpxPath, Consumer<ScanResult> sink) {
+        Path libraryPath = Paths.get(config.getRootPath());
+        String relativePath = libraryPath.relativize(inpxPath).toString();
+        Path collectionDir = inpxPath.getParent();
+        String collectionPath = libraryPath.relativize(collectionDir).toString();
+
+        log.info("Importing INPX index: {}", relativePath);
+        boolean checkArchives = config.isInpxTestZip() || config.isInpxTestFiles();
+        ExecutorService checkExecutor = checkArchives ? archiveExecutor() : null;
+        Map<String, CompletableFuture<ArchiveContents>> archiveChecks = new ConcurrentHashMap<>();
+
+        try (ZipFile inpx = new ZipFile(inpxPath.toFile(), StandardCharsets.UTF_8)) {
+            List<String> structure = inpxParser.readStructure(inpx);
+            List<? extends ZipEntry> inpEntries = inpx.stream()
+                    .filter(entry -> "inp".equals(getFileExtension(entry.getName())))
+                    .toList();
+
+            if (checkArchives) {
+                // Start all archive checks up front, they run in parallel while the records are streamed
+                for (ZipEntry inp : inpEntries) {
+                    String archiveName = archiveNameOf(inp.getName());
+                    archiveChecks.computeIfAbsent(archiveName, name -> CompletableFuture.supplyAsync(
+                            () -> checkArchive(collectionDir.resolve(name)), checkExecutor));
+                }
+            }
 
-                    log.debug("Added book from ZIP: {}", book.getTitle());
+            for (ZipEntry inp : inpEntries) {
+                if (Thread.currentThread().isInterrupted()) {
                     return;
                 }
+                String archiveName = archiveNameOf(inp.getName());
+                // One existing-paths query per archive; records normally all point to the .inp's own archive
+                Map<String, Set<String>> existingPaths = new HashMap<>();
+
+                try (InputStream is = inpx.getInputStream(inp)) {
+                    inpxParser.parse(is, structure, inpRecord -> {
+                        String folder = inpRecord.getFolder() != null ? inpRecord.getFolder() : archiveName;
+                        String archivePath = collectionPath.isEmpty() ? folder : collectionPath + "/" + folder;
+                        CompletableFuture<ArchiveContents> check = checkArchives
+                                ? archiveChecks.computeIfAbsent(folder, name -> CompletableFuture.supplyAsync(
+                                () -> checkArchive(collectionDir.resolve(name)), checkExecutor))
+                                : null;
+                        processInpRecord(inpRecord, relativePath, archivePath,
+                                existingPaths.computeIfAbsent(archivePath, this::findExistingPaths), check, sink);
+                    });
+                }
+            }
+
+            sink.accept(scannedFile(inpxPath, relativePath, null, null));
+
+        } catch (IOException e) {
+            log.error("Error processing INPX file: {}", inpxPath, e);
+            errorCount.incrementAndGet();
+        } finally {
+            // Checks that have not started yet are skipped; the executor is shared
+            archiveChecks.values().forEach(check -> check.cancel(true));
+        }
+    }
+
+    private void processInpRecord(InpxParser.InpRecord inpRecord, String inpxRelativePath, String archivePath,
+                                  Set<String> existingPaths, CompletableFuture<ArchiveContents> check,
+                                  Consumer<ScanResult> sink) {
+        if (inpRecord.isDeleted() || !config.getSupportedFormats().contains(inpRecord.getExt())) {
+            return;
+        }
+        processedFiles.incrementAndGet();
+
+        String filename = inpRecord.getFilename();
+        String entryPath = archivePath + "/" + filename;
+        if (existingPaths.contains(entryPath)) {
+            log.debug("Book already exists: {}", entryPath);
+            return;
+        }
+
+        if (check != null) {
+            ArchiveContents contents = check.join();
+            if (!contents.exists()) {
+                log.debug("Skipping INPX record, archive not found: {}", entryPath);
+                return;
+            }
+            if (config.isInpxTestFiles() && !contents.entryNames().contains(filename)) {
+                log.debug("Skipping INPX record, file not found in archive: {}", entryPath);
+                return;
+            }
+        }
+
+        Fb2Parser.Fb2Metadata metadata = Fb2Parser.Fb2Metadata.builder()
+                .title(inpRecord.getTitle() != null ? inpRecord.getTitle() : inpRecord.getFile())
+                .authors(inpRecord.getAuthors())
+                .genres(inpRecord.getGenres())
+                .lang(inpRecord.getLang())
+                .seriesName(inpRecord.getSeriesName())
+                .seriesNumber(inpRecord.getSeriesNumber())
+                .build();
+
+        sink.accept(ScannedBook.builder()
+                .path(entryPath)
+                .source(inpxRelativePath)
+                .filename(filename)
+                .format(inpRecord.getExt())
+                .filesize(BigDecimal.valueOf(inpRecord.getSize() / (1024.0 * 1024.0)))
+                .metadata(metadata)
+                .build());
+    }
+
+    private ArchiveContents checkArchive(Path archive) {
+        if (!Files.isRegularFile(archive)) {
+            return new ArchiveContents(false, Set.of());
+        }
+        if (!config.isInpxTestFiles()) {
+            return new ArchiveContents(true, Set.of());
+        }
+        try (ZipFile zipFile = new ZipFile(archive.toFile(),
+                java.nio.charset.Charset.forName(config.getZipEncoding()))) {
+            return new ArchiveContents(true, zipFile.stream()
+                    .map(ZipEntry::getName)
+                    .collect(Collectors.toSet()));
+        } catch (IOException e) {
+            log.warn("Failed to read archive referenced by INPX: {}", archive, e);
+            return new ArchiveContents(false, Set.of());
+        }
+    }
+
+    /**
+     * "fb2-000001-010000.inp" -> "fb2-000001-010000.zip"
+     */
+    private static String archiveNameOf(String inpName) {
+        String name = new File(inpName).getName();
+        return name.substring(0, name.length() - ".inp".length()) + ".zip";
+    }
+
+    private static List<Path> findInpxFiles(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files
+                    .filter(file -> file.getFileName().toString().toLowerCase().endsWith(".inpx"))
+                    .filter(Files::isRegularFile)
+                    .toList();
+        }
+    }
+
+    private record ArchiveContents(boolean exists, Set<String> entryNames) {
+    }
+
+    /**
+     * Paths of all books already stored for the given archive
+     */
+    private Set<String> findExistingPaths(String archivePath) {
+        return bookRepository.findByPathStartingWith(archivePath + "/").stream()
+                .map(BookRepository.PathView::getPath)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Wraps a book stream so that the MD5 of its content is computed by the reads the parser makes anyway.
+     */
+    private DigestInputStream digesting(InputStream inputStream) {
+        try {
+            DigestInputStream in = new DigestInputStream(inputStream, MessageDigest.getInstance("MD5"));
+            in.on(config.isScanMd5());
+            return in;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    /**
+     * Feeds the bytes the parser left unread (it stops after the description) through the digest.
+     *
+     * @return hex MD5 of the whole stream, null if hashing is disabled
+     */
+    private String finishMd5(DigestInputStream in) throws IOException {
+        if (!config.isScanMd5()) {
+            return null;
+        }
+        in.transferTo(OutputStream.nullOutputStream());
+        return HexFormat.of().formatHex(in.getMessageDigest().digest());
+    }
+
+    private String fileMd5(Path filePath) throws IOException {
+        if (!config.isScanMd5()) {
+            return null;
+        }
+        try (DigestInputStream in = digesting(Files.newInputStream(filePath))) {
+            return finishMd5(in);
+        }
+    }
+
+    private ScannedFile scannedFile(Path filePath, String relativePath,
+                                    Integer entryCount, Long entryCrc) throws IOException {
+        return ScannedFile.builder()
+                .path(relativePath)
+                .fileSize(Files.size(filePath))
+                .lastModified(Files.getLastModifiedTime(filePath).toMillis())
+                .entryCount(entryCount)
+                .entryCrc(entryCrc)
+                .build();
+    }
+
+    /**
+     * Fingerprint of an archive's central directory; reading it does not touch entry data.
+     */
+    private long centralDirectoryCrc(List<? extends ZipEntry> entries) {
+        CRC32 crc = new CRC32();
+        for (ZipEntry entry : entries) {
+            crc.update(entry.getName().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            crc.update(Long.toString(entry.getCrc()).getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+            crc.update(Long.toString(entry.getSize()).getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writer stage: persists one chunk of parsed books and manifest records in its own transaction.
+     * <p>
+     * The persistence context is flushed and cleared every {@code scanFlushSize} books and is
+     * discarded with the transaction, so heap use does not grow with the library. A failed chunk
+     * is retried one result at a time, so a single bad book cannot take the whole chunk with it.
+     * A file with a book that still fails gets neither its manifest entry nor its journal
+     * completion, so the next scan reads it again.
+     */
+    private void persistBatch(List<ScanResult> chunk) {
+        List<ScanResult> batch = withoutFailedFiles(chunk);
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            BatchCounts counts = transactionTemplate.execute(status -> {
+                int added = 0;
+                int updated = 0;
+                List<Long> bookIds = new ArrayList<>();
+                Set<Long> authorIds = new HashSet<>();
+                Set<Long> seriesIds = new HashSet<>();
+                List<ScanManifestEntry> manifestEntries = new ArrayList<>();
+                Set<String> storedPaths = storedPaths(batch);
+                for (ScanResult result : batch) {
+                    if (result instanceof ScannedBook scanned) {
+                        Book book = createBook(scanned);
+                        Optional<Book> existing = scanned.isUpdate() || storedPaths.contains(scanned.getPath())
+                                ? bookRepository.findByPath(scanned.getPath())
+                                : Optional.empty();
+                        if (existing.isPresent()) {
+                            Book current = existing.get();
+                            String previousTitle = Boolean.TRUE.equals(current.getAvailable())
+                                    ? current.getTitleSort()
+                                    : null;
+                            // Pages of the authors and series the book leaves are stale as well
+                            collectOwners(current, authorIds, seriesIds);
+                            updateBook(current, book);
+                            updateAnnotation(current, annotationOf(scanned));
+                            alphabetIndex.changed(AlphabetIndexService.Kind.BOOK, previousTitle, current.getTitleSort());
+                            if (previousTitle == null) {
+                                catalogStats.changed(1, 0, 0);
+                            }
+                            collectOwners(current, authorIds, seriesIds);
+                            bookIds.add(current.getId());
+                            updated++;
+                            log.debug("Updated book: {}", book.getPath());
+                        } else {
+                            bookIds.add(bookRepository.save(book).getId());
+                            collectOwners(book, authorIds, seriesIds);
+                            String annotation = annotationOf(scanned);
+                            if (annotation != null) {
+                                bookAnnotationRepository.save(BookAnnotation.builder()
+                                        .book(book)
+                                        .annotation(annotation)
+                                        .build());
+                            }
+                            alphabetIndex.added(AlphabetIndexService.Kind.BOOK, book.getTitleSort());
+                            catalogStats.changed(1, 0, 0);
+                            added++;
+                            log.debug("Added book: {}", book.getPath());
+                        }
+
+                        if ((added + updated) % Math.max(1, config.getScanFlushSize()) == 0) {
+                            entityManager.flush();
+                            entityManager.clear();
+                        }
+                    } else if (result instanceof ScannedFile file) {
+                        manifestEntries.add(ScanManifestEntry.builder()
+                                .path(file.getPath())
+                                .fileSize(file.getFileSize())
+                                .lastModified(file.getLastModified())
+                                .entryCount(file.getEntryCount())
+                                .entryCrc(file.getEntryCrc())
+                                .scanDate(LocalDateTime.now())
+                                .build());
+                    }
+                }
+                // Plain JDBC batch: a native query here would force Hibernate to flush and break its insert batches
+                scanManifestRepository.upsertAll(manifestEntries);
+                return new BatchCounts(added, updated, bookIds,
+                        new CatalogChangeEvent(Set.copyOf(bookIds), authorIds, seriesIds));
+            });
+            metrics.record(ScanMetrics.Stage.WRITE, start);
+            dictionary.commit();
+            addedBooks.addAndGet(counts.added());
+            updatedBooks.addAndGet(counts.updated());
+            metrics.booksWritten(counts.added() + counts.updated());
+            journal.committed(batch);
+            // After the commit: one set-based statement per batch instead of a trigger per row
+            searchService.indexBooks(counts.bookIds());
+            eventPublisher.publishEvent(counts.change());
+        } catch (Exception e) {
+            dictionary.rollback();
+            if (batch.size() > 1) {
+                log.warn("Error persisting batch of {} scan results, retrying one by one", batch.size(), e);
+                for (ScanResult result : batch) {
+                    persistBatch(List.of(result));
+                }
+            } else {
+                log.error("Error persisting scan result: {}", describe(batch.get(0)), e);
+                errorCount.incrementAndGet();
+                String source = sourceOf(batch.get(0));
+                if (source != null) {
+                    failedSources.add(source);
+                }
             }
+        }
+    }
+
+    /**
+     * The chunk without the completion records of files that lost a book. The writer sees a file's
+     * books before its {@link ScannedFile}, {@link ArchiveProgress} and {@link ProcessedFile} records,
+     * so a failure is always known by the time they arrive.
+     */
+    private List<ScanResult> withoutFailedFiles(List<ScanResult> chunk) {
+        if (failedSources.isEmpty()) {
+            return chunk;
+        }
+        Path libraryPath = Paths.get(config.getRootPath());
+        return chunk.stream()
+                .filter(result -> {
+                    String completed = null;
+                    if (result instanceof ScannedFile file) {
+                        completed = file.getPath();
+                    } else if (result instanceof ArchiveProgress progress) {
+                        completed = progress.getPath();
+                    } else if (result instanceof ProcessedFile processed) {
+                        completed = libraryPath.relativize(processed.getFile()).toString();
+                    }
+                    if (completed != null && failedSources.contains(completed)) {
+                        log.debug("Not completing {}, a book of it was not stored", completed);
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+    }
+
+    private static String sourceOf(ScanResult result) {
+        if (result instanceof ScannedBook scanned) {
+            return scanned.getSource();
+        }
+        if (result instanceof ScannedFile file) {
+            return file.getPath();
+        }
+        return null;
+    }
+
+    /**
+     * Paths of books the scanner took for new that are already stored, which only happens to
+     * books stored before the manifest existed: one query per batch instead of one per file.
+     */
+    private Set<String> storedPaths(List<ScanResult> batch) {
+        List<String> paths = batch.stream()
+                .filter(result -> result instanceof ScannedBook scanned && !scanned.isUpdate())
+                .map(result -> ((ScannedBook) result).getPath())
+                .toList();
+        return paths.isEmpty() ? Set.of() : new HashSet<>(bookRepository.findStoredPaths(paths));
+    }
+
+    private record BatchCounts(int added, int updated, List<Long> bookIds, CatalogChangeEvent change) {
+    }
+
+    private static void collectOwners(Book book, Set<Long> authorIds, Set<Long> seriesIds) {
+        book.getAuthors().forEach(author -> authorIds.add(author.getId()));
+        if (book.getSeries() != null) {
+            seriesIds.add(book.getSeries().getId());
+        }
+    }
+
+    /**
+     * Copies what was read from a replaced file onto its existing book, keeping id and register date.
+     */
+    private void updateBook(Book existing, Book book) {
+        existing.setTitle(book.getTitle());
+        existing.setTitleSort(book.getTitleSort());
+        existing.setLang(book.getLang());
+        existing.setIsbn(book.getIsbn());
+        existing.setFormat(book.getFormat());
+        existing.setFilename(book.getFilename());
+        existing.setFilesize(book.getFilesize());
+        existing.setMd5(book.getMd5());
+        existing.setCover(book.getCover());
+        existing.setPublishDate(book.getPublishDate());
+        existing.setSeries(book.getSeries());
+        existing.setSeriesNumber(book.getSeriesNumber());
+        existing.setAvailable(true);
+        existing.getAuthors().clear();
+        existing.getAuthors().addAll(book.getAuthors());
+        existing.getGenres().clear();
+        existing.getGenres().addAll(book.getGenres());
+    }
+
+    private void updateAnnotation(Book book, String annotation) {
+        Optional<BookAnnotation> existing = bookAnnotationRepository.findById(book.getId());
+        if (annotation == null) {
+            existing.ifPresent(bookAnnotationRepository::delete);
+        } else if (existing.isPresent()) {
+            existing.get().setAnnotation(annotation);
+        } else {
+            bookAnnotationRepository.save(BookAnnotation.builder().book(book).annotation(annotation).build());
+        }
+    }
+
+    private static String annotationOf(ScannedBook scanned) {
+        return scanned.getMetadata() != null ? scanned.getMetadata().getAnnotation() : null;
+    }
+
+    private static String describe(ScanResult result) {
+        if (result instanceof ScannedBook scanned) {
+            return scanned.getPath();
+        }
+        if (result instanceof ScannedFile file) {
+            return file.getPath();
+        }
+        return String.valueOf(result);
+    }
 
-            // Generic entry for other formats
-            String filename = new File(entry.getName()).getName();
+    private Book createBook(ScannedBook scanned) {
+        Book book;
+        if (scanned.getMetadata() != null) {
+            book = createBookFromMetadata(scanned.getMetadata(), scanned.getPath(), scanned.getFormat());
+        } else {
+            // Generic entry for formats without metadata
+            String filename = scanned.getFilename();
             String title = filename.substring(0, filename.lastIndexOf('.'));
 
-            Book book = Book.builder()
+            book = Book.builder()
                     .title(title)
                     .titleSort(title)
-                    .path(entryPath)
-                    .filename(filename)
-                    .format(extension.toUpperCase())
-                    .filesize(BigDecimal.valueOf(entry.getSize() / (1024.0 * 1024.0)))
+                    .path(scanned.getPath())
+                    .format(scanned.getFormat().toUpperCase())
                     .available(true)
                     .build();
-
-            bookRepository.save(book);
-            addedBooks.incrementAndGet();
-
-        } catch (Exception e) {
-            log.error("Error processing ZIP entry: {}", entry.getName(), e);
-            errorCount.incrementAndGet();
         }
+        book.setFilename(scanned.getFilename());
+        book.setFilesize(scanned.getFilesize());
+        book.setMd5(scanned.getMd5());
+        return book;
     }
 
-    private Book createBookFromMetadata(Fb2Parser.Fb2Metadata metadata, Path filePath,
-                                        String relativePath, String format) throws IOException {
+    private Book createBookFromMetadata(Fb2Parser.Fb2Metadata metadata, String relativePath, String format) {
         Book book = Book.builder()
                 .title(truncate(metadata.getTitle(), 500))
                 .titleSort(truncate(metadata.getTitle(), 500))
-                .annotation(metadata.getAnnotation()) // TEXT field, no truncation needed
                 .lang(metadata.getLang() != null ? truncate(metadata.getLang(), 10) : null)
                 .isbn(metadata.getIsbn() != null ? truncate(metadata.getIsbn(), 50) : null)
+                .cover(metadata.getCover())
                 .path(truncate(relativePath, 1000))
                 .format(format.toUpperCase())
                 .available(true)
                 .build();
 
-        if (filePath != null) {
-            book.setFilename(filePath.getFileName().toString());
-            book.setFilesize(BigDecimal.valueOf(Files.size(filePath) / (1024.0 * 1024.0)));
-        }
-
         // Parse and set publish date
         if (metadata.getDate() != null) {
             book.setPublishDate(parseDate(metadata.getDate()));
         }
 
-        // Add authors
+        long resolveStart = System.nanoTime();
+
+        // Add authors. Only the owning side is set: Author.books and Genre.books are never
+        // initialized during a scan, so resolved ids can be attached as proxies without a SELECT
         if (metadata.getAuthors() != null) {
             for (Fb2Parser.Fb2Metadata.AuthorInfo authorInfo : metadata.getAuthors()) {
-                Author author = findOrCreateAuthor(authorInfo);
-                book.addAuthor(author);
+                book.getAuthors().add(findOrCreateAuthor(authorInfo));
             }
         }
 
         // Add genres
         if (metadata.getGenres() != null) {
             for (String genreCode : metadata.getGenres()) {
-                genreRepository.findByCode(genreCode).ifPresent(book::addGenre);
+                Long genreId = dictionary.genre(genreCode);
+                if (genreId != null) {
+                    book.getGenres().add(genreRepository.getReferenceById(genreId));
+                }
             }
         }
 
@@ -318,15 +1192,15 @@ public class BookScannerService {
             book.setSeries(series);
             book.setSeriesNumber(metadata.getSeriesNumber());
         }
+        metrics.record(ScanMetrics.Stage.RESOLVE, resolveStart);
 
         return book;
     }
 
     private Author findOrCreateAuthor(Fb2Parser.Fb2Metadata.AuthorInfo authorInfo) {
-        String fullName = authorInfo.getFullName();
-
-        return authorRepository.findByFullName(fullName)
-                .orElseGet(() -> {
+        Long id = dictionary.author(authorInfo.getFullName(),
+                fullName -> authorRepository.findByFullName(fullName).map(Author::getId),
+                fullName -> {
                     Author author = Author.builder()
                             .fullName(fullName)
                             .firstName(authorInfo.getFirstName())
@@ -334,57 +1208,88 @@ public class BookScannerService {
                             .lastName(authorInfo.getLastName())
                             .fullNameSort(fullName)
                             .build();
-                    return authorRepository.save(author);
+                    alphabetIndex.added(AlphabetIndexService.Kind.AUTHOR, author.getFullNameSort());
+                    catalogStats.changed(0, 1, 0);
+                    return authorRepository.save(author).getId();
                 });
+        return authorRepository.getReferenceById(id);
     }
 
     private Series findOrCreateSeries(String seriesName) {
-        return seriesRepository.findByName(seriesName)
-                .orElseGet(() -> {
+        Long id = dictionary.series(seriesName,
+                name -> seriesRepository.findByName(name).map(Series::getId),
+                name -> {
                     Series series = Series.builder()
-                            .name(seriesName)
-                            .nameSort(seriesName)
+                            .name(name)
+                            .nameSort(name)
                             .build();
-                    return seriesRepository.save(series);
+                    alphabetIndex.added(AlphabetIndexService.Kind.SERIES, series.getNameSort());
+                    catalogStats.changed(0, 0, 1);
+                    return seriesRepository.save(series).getId();
                 });
+        return seriesRepository.getReferenceById(id);
     }
 
     private LocalDate parseDate(String dateStr) {
-        try {
-            // Try different date formats
-            String[] formats = {"yyyy-MM-dd", "yyyy", "dd.MM.yyyy", "dd/MM/yyyy"};
-            for (String format : formats) {
-                try {
-                    if (format.equals("yyyy") && dateStr.length() == 4) {
-                        return LocalDate.of(Integer.parseInt(dateStr), 1, 1);
-                    }
-                    return LocalDate.parse(dateStr, DateTimeFormatter.ofPattern(format));
-                } catch (Exception ignored) {
-                }
-            }
-        } catch (Exception e) {
+        LocalDate date = ScanFormats.parseDate(dateStr);
+        if (date == null) {
             log.debug("Failed to parse date: {}", dateStr);
         }
-        return null;
+        return date;
     }
 
     private String getFileExtension(String filename) {
-        int lastDot = filename.lastIndexOf('.');
-        if (lastDot > 0 && lastDot < filename.length() - 1) {
-            return filename.substring(lastDot + 1).toLowerCase();
-        }
-        return "";
+        return ScanFormats.getFileExtension(filename);
     }
 
     private void resetCounters() {
         processedFiles.set(0);
         addedBooks.set(0);
         updatedBooks.set(0);
+        skippedFiles.set(0);
         errorCount.set(0);
     }
 
+    /**
+     * Counters of the running or last scan.
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("processedFiles", processedFiles.get());
+        stats.put("addedBooks", addedBooks.get());
+        stats.put("updatedBooks", updatedBooks.get());
+        stats.put("unchangedFiles", skippedFiles.get());
+        stats.put("errors", errorCount.get());
+        return stats;
+    }
+
+    /**
+     * Live progress of the running scan: current file, queue depths, throughput and estimated time left.
+     */
+    public Map<String, Object> getProgress() {
+        ScanPipeline pipeline = currentPipeline.get();
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("running", pipeline != null);
+        Path currentFile = metrics.getCurrentFile();
+        progress.put("currentFile", currentFile != null ? currentFile.toString() : null);
+        progress.put("fileQueueDepth", pipeline != null ? pipeline.getFileQueueDepth() : 0);
+        progress.put("resultQueueDepth", pipeline != null ? pipeline.getResultQueueDepth() : 0);
+        progress.put("discoveryComplete", metrics.isDiscoveryComplete());
+        progress.put("discoveredFiles", metrics.getDiscoveredFiles());
+        progress.put("discoveredBytes", metrics.getDiscoveredBytes());
+        progress.put("parsedFiles", metrics.getParsedFiles());
+        progress.put("parsedBytes", metrics.getParsedBytes());
+        progress.put("writtenBooks", metrics.getWrittenBooks());
+        progress.put("elapsedSeconds", Math.round(metrics.getElapsedSeconds()));
+        progress.put("bytesPerSecond", Math.round(metrics.getBytesPerSecond()));
+        progress.put("booksPerSecond", Math.round(metrics.getBooksPerSecond() * 10) / 10.0);
+        progress.put("etaSeconds", pipeline != null ? metrics.getEtaSeconds() : null);
+        progress.putAll(getStatistics());
+        return progress;
+    }
+
     public void logStatistics() {
-        log.info("Current scan statistics - Processed: {}, Added: {}, Updated: {}, Errors: {}",
-                processedFiles.get(), addedBooks.get(), updatedBooks.get(), errorCount.get());
+        log.info("Current scan statistics - Processed: {}, Added: {}, Updated: {}, Unchanged: {}, Errors: {}",
+                processedFiles.get(), addedBooks.get(), updatedBooks.get(), skippedFiles.get(), errorCount.get());
     }
 }
\ No newline at end of file
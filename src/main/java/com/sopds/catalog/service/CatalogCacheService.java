@@ -0,0 +1,125 @@
+package com.sopds.catalog.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.sopds.catalog.config.CacheConfiguration;
+import com.sopds.catalog.service.catalog.CatalogChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Targeted invalidation of the read-path caches filled by {@link CatalogService}.
+ * <p>
+ * Books, authors and series are cached under {@code "<id>@<version>"}, the pages of an author's or
+ * a series' books under {@code "<id>@<version>/<cursor>"}, so every page of one author or series can
+ * be dropped without touching the others. An entry is versioned when its key is computed, before the
+ * read: eviction moves the owner to the current catalog generation, so a request that read the rows
+ * from before the scanner's commit stores its result under the old version, which no later lookup
+ * uses. Such late entries only wait for the size or expiry bound. The cached methods load with
+ * {@code sync = true}, so the key is computed only once per call.
+ * <p>
+ * The version table is bounded like the caches. An owner without an entry, never looked up or
+ * dropped from the table, takes the current generation, which no older key of it can carry: its
+ * last eviction happened at that generation or before.
+ */
+@Slf4j
+@Service
+public class CatalogCacheService {
+
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+    public static final String SERIES = "series";
+    public static final String GENRES = "genres";
+
+    private final CacheManager cacheManager;
+    private final CatalogGenerationService generationService;
+
+    /**
+     * Per cache, the version of the owners looked up or evicted recently
+     */
+    private final Map<String, LoadingCache<Long, Long>> versions;
+
+    public CatalogCacheService(CacheManager cacheManager, CatalogGenerationService generationService,
+                               CacheConfiguration config) {
+        this.cacheManager = cacheManager;
+        this.generationService = generationService;
+        this.versions = Map.of(
+                BOOKS, versionTable(config.getVersions()),
+                AUTHORS, versionTable(config.getVersions()),
+                SERIES, versionTable(config.getVersions()));
+    }
+
+    /**
+     * Key of a book, author or series in its cache. An owner seen for the first time is pinned to the
+     * current generation, so its key stays the same until the owner itself changes.
+     */
+    public String key(String cacheName, long id) {
+        return id + "@" + versions.get(cacheName).get(id);
+    }
+
+    /**
+     * Key of one page of an author's or a series' books
+     */
+    public String pageKey(String cacheName, long id, String cursor) {
+        return key(cacheName, id) + "/" + (cursor != null ? cursor : "");
+    }
+
+    @EventListener
+    public void catalogChanged(CatalogChangeEvent event) {
+        if (event.isEmpty()) {
+            return;
+        }
+        long generation = generationService.current().number();
+        evictOwners(BOOKS, event.getBookIds(), generation);
+        evictOwners(AUTHORS, event.getAuthorIds(), generation);
+        evictOwners(SERIES, event.getSeriesIds(), generation);
+        log.debug("Evicted {} books, {} authors and {} series from the caches",
+                event.getBookIds().size(), event.getAuthorIds().size(), event.getSeriesIds().size());
+    }
+
+    /**
+     * Moves the given owners to the current generation, which {@link CatalogGenerationService} has
+     * already advanced for this change, then drops their entries of older versions
+     */
+    private void evictOwners(String cacheName, Set<Long> ids, long generation) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        LoadingCache<Long, Long> owners = versions.get(cacheName);
+        ids.forEach(id -> owners.put(id, generation));
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (cache instanceof CaffeineCache caffeine) {
+            caffeine.getNativeCache().asMap().keySet().removeIf(key -> key instanceof String entry
+                    && ids.contains(ownerOf(entry)));
+        } else {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Maintenance runs on the calling thread: it is a few map operations, and drops happen in step
+     * with the writes that cause them
+     */
+    private LoadingCache<Long, Long> versionTable(String spec) {
+        return Caffeine.from(spec).executor(Runnable::run).build(id -> generationService.current().number());
+    }
+
+    private static Long ownerOf(String key) {
+        int at = key.indexOf('@');
+        try {
+            return Long.valueOf(at < 0 ? key : key.substring(0, at));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
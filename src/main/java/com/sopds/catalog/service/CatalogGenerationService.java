@@ -0,0 +1,75 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.service.catalog.CatalogChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generation number of everything the catalog pages and feeds show, the validator of their
+ * conditional responses.
+ * <p>
+ * It advances whenever a scanner chunk commits, when a scan completes and when the statistics
+ * reconcile corrects the counters. The first generation is the startup time in milliseconds, so
+ * generations keep increasing across restarts and a restart revalidates every client copy once.
+ */
+@Slf4j
+@Service
+public class CatalogGenerationService {
+
+    private final AtomicReference<Generation> current;
+
+    public CatalogGenerationService() {
+        long now = System.currentTimeMillis();
+        this.current = new AtomicReference<>(new Generation(now, now));
+    }
+
+    public Generation current() {
+        return current.get();
+    }
+
+    public void advance() {
+        Generation next = current.updateAndGet(previous ->
+                new Generation(previous.number() + 1, Math.max(previous.modifiedAt(), System.currentTimeMillis())));
+        log.debug("Catalog generation {}", next.number());
+    }
+
+    /**
+     * Runs before the other change listeners, so {@link CatalogCacheService} versions the evicted
+     * entries with the new generation
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void catalogChanged(CatalogChangeEvent event) {
+        if (!event.isEmpty()) {
+            advance();
+        }
+    }
+
+    /**
+     * Pages served while the startup listeners were still loading the in-memory indexes must not stay valid
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void ready() {
+        advance();
+    }
+
+    /**
+     * @param modifiedAt when the generation was reached, epoch milliseconds
+     */
+    public record Generation(long number, long modifiedAt) {
+
+        /**
+         * Weak, so it survives response compression unchanged
+         */
+        public String etag() {
+            return "W/\"" + Long.toString(number, 36) + "\"";
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.OpdsConfiguration;
+import com.sopds.catalog.repository.AuthorRepository;
+import com.sopds.catalog.repository.AuthorRepository.FeedAuthorView;
+import com.sopds.catalog.repository.AuthorRepository.ListedAuthorView;
+import com.sopds.catalog.repository.BookAnnotationRepository;
+import com.sopds.catalog.repository.BookAnnotationRepository.AnnotationView;
+import com.sopds.catalog.repository.BookRepository;
+import com.sopds.catalog.repository.BookRepository.BookLinkView;
+import com.sopds.catalog.repository.BookRepository.FeedBookView;
+import com.sopds.catalog.repository.GenreRepository;
+import com.sopds.catalog.repository.KeysetCursor;
+import com.sopds.catalog.repository.SeriesRepository;
+import com.sopds.catalog.repository.SeriesRepository.FeedSeriesView;
+import com.sopds.catalog.repository.SeriesRepository.ListedSeriesView;
+import com.sopds.catalog.service.catalog.BookCursorPage;
+import com.sopds.catalog.service.catalog.BookItem;
+import com.sopds.catalog.service.catalog.CatalogViewMapper;
+import com.sopds.catalog.service.catalog.CursorPage;
+import com.sopds.catalog.service.catalog.NavigationItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset-paginated pages of the catalog, shared by the OPDS feeds and the web pages.
+ * <p>
+ * Every page is read with one query that fetches {@code pageSize + 1} rows (the extra row only
+ * tells whether a next page exists), plus one query each for the authors, genres and annotations
+ * of all books of the page; the series comes with the page query. {@link CatalogViewMapper} turns
+ * these into {@link BookItem} list views. Book details, author and series pages and the genre tree
+ * are cached, always as immutable views rather than entities; {@link CatalogCacheService} evicts
+ * them when the scanner changes their books.
+ * A cursor encodes the sort key and id of the last row of a page; without a cursor the listing
+ * starts from a sentinel that sorts before every row.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+
+    /**
+     * Sorts after every registration date, for the first page of the newest-first listing
+     */
+    private static final LocalDateTime NEWEST_SENTINEL = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final BookRepository bookRepository;
+    private final BookAnnotationRepository bookAnnotationRepository;
+    private final AuthorRepository authorRepository;
+    private final SeriesRepository seriesRepository;
+    private final GenreRepository genreRepository;
+    private final CatalogViewMapper viewMapper;
+    private final OpdsConfiguration config;
+
+    /**
+     * All books by title
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public BookCursorPage books(String cursor) {
+        KeysetCursor after = decode(cursor);
+        return bookPage(bookRepository.findAllByTitleAfter(after != null ? after.getKey() : "",
+                        after != null ? after.getId() : 0, limit()),
+                last -> new KeysetCursor(last.getTitleSort(), last.getId()));
+    }
+
+    /**
+     * A single book as a one-entry page
+     */
+    @Cacheable(cacheNames = CatalogCacheService.BOOKS, key = "@catalogCacheService.key('books', #id)",
+            sync = true)
+    @Transactional(readOnly = true)
+    public BookCursorPage book(long id) {
+        return bookPage(bookRepository.findViewById(id), last -> new KeysetCursor("", last.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public BookCursorPage newBooks(String cursor) {
+        KeysetCursor after = decode(cursor);
+        LocalDateTime registerDate = after != null ? parseDate(after.getKey()) : NEWEST_SENTINEL;
+        long id = after != null ? after.getId() : Long.MAX_VALUE;
+        return bookPage(bookRepository.findNewestBefore(registerDate, id, limit()),
+                last -> new KeysetCursor(last.getRegisterDate().toString(), last.getId()));
+    }
+
+    @Cacheable(cacheNames = CatalogCacheService.AUTHORS,
+            key = "@catalogCacheService.pageKey('authors', #authorId, #cursor)", sync = true)
+    @Transactional(readOnly = true)
+    public BookCursorPage authorBooks(long authorId, String cursor) {
+        KeysetCursor after = decode(cursor);
+        return bookPage(bookRepository.findByAuthorAfter(authorId, after != null ? after.getKey() : "",
+                        after != null ? after.getId() : 0, limit()),
+                last -> new KeysetCursor(last.getTitleSort(), last.getId()));
+    }
+
+    @Cacheable(cacheNames = CatalogCacheService.SERIES,
+            key = "@catalogCacheService.pageKey('series', #seriesId, #cursor)", sync = true)
+    @Transactional(readOnly = true)
+    public BookCursorPage seriesBooks(long seriesId, String cursor) {
+        KeysetCursor after = decode(cursor);
+        int number = after != null ? parseNumber(after.getKey()) : Integer.MIN_VALUE;
+        return bookPage(bookRepository.findBySeriesAfter(seriesId, number, after != null ? after.getId() : 0, limit()),
+                last -> new KeysetCursor(String.valueOf(last.getSeriesNumber() != null ? last.getSeriesNumber() : 0),
+                        last.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public BookCursorPage genreBooks(long genreId, String cursor) {
+        KeysetCursor after = decode(cursor);
+        return bookPage(bookRepository.findByGenreBefore(genreId, after != null ? after.getId() : Long.MAX_VALUE, limit()),
+                last -> new KeysetCursor("", last.getId()));
+    }
+
+    /**
+     * Case-insensitive title substring search, used where ranked search is unavailable
+     */
+    @Transactional(readOnly = true)
+    public BookCursorPage searchBooks(String query, String cursor) {
+        KeysetCursor after = decode(cursor);
+        String pattern = "%" + escapeLike(query.trim().toLowerCase(Locale.ROOT)) + "%";
+        return bookPage(bookRepository.findByTitleAfter(pattern, after != null ? after.getKey() : "",
+                        after != null ? after.getId() : 0, limit()),
+                last -> new KeysetCursor(last.getTitleSort(), last.getId()));
+    }
+
+    /**
+     * Books whose sort title starts with the prefix, case-insensitive: one group of the alphabet
+     * navigation. The first page starts at the prefix in the upper-case title index.
+     */
+    @Transactional(readOnly = true)
+    public BookCursorPage titlePrefixBooks(String prefix, String cursor) {
+        KeysetCursor after = decode(cursor);
+        String upper = prefix.toUpperCase(Locale.ROOT);
+        return bookPage(bookRepository.findByTitlePrefixAfter(upper, prefixEnd(upper), escapeLike(upper) + "%",
+                        after != null ? after.getKey() : upper, after != null ? after.getId() : 0, limit()),
+                last -> new KeysetCursor(last.getSortKey(), last.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<FeedAuthorView> authors(String cursor) {
+        KeysetCursor after = decode(cursor);
+        List<FeedAuthorView> rows = authorRepository.findPageAfter(after != null ? after.getKey() : "",
+                after != null ? after.getId() : 0, limit());
+        return page(rows, last -> new KeysetCursor(last.getFullNameSort(), last.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<FeedSeriesView> series(String cursor) {
+        KeysetCursor after = decode(cursor);
+        List<FeedSeriesView> rows = seriesRepository.findPageAfter(after != null ? after.getKey() : "",
+                after != null ? after.getId() : 0, limit());
+        return page(rows, last -> new KeysetCursor(last.getNameSort(), last.getId()));
+    }
+
+    /**
+     * Authors whose sort name starts with the prefix ({@code startsWith}) or contains it, case-insensitive.
+     * A prefix listing starts at the prefix in the upper-case name index.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ListedAuthorView> authorsByName(String name, boolean startsWith, String cursor) {
+        KeysetCursor after = decode(cursor);
+        long id = after != null ? after.getId() : 0;
+        List<ListedAuthorView> rows;
+        if (startsWith) {
+            String upper = name.toUpperCase(Locale.ROOT);
+            rows = authorRepository.findByNamePrefixAfter(upper, prefixEnd(upper), escapeLike(upper) + "%",
+                    after != null ? after.getKey() : upper, id, limit());
+        } else {
+            rows = authorRepository.findByNameAfter(containsPattern(name), after != null ? after.getKey() : "",
+                    id, limit());
+        }
+        return page(rows, last -> new KeysetCursor(last.getSortKey(), last.getId()));
+    }
+
+    /**
+     * Series whose sort name starts with the prefix ({@code startsWith}) or contains it, case-insensitive.
+     * A prefix listing starts at the prefix in the upper-case name index.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ListedSeriesView> seriesByName(String name, boolean startsWith, String cursor) {
+        KeysetCursor after = decode(cursor);
+        long id = after != null ? after.getId() : 0;
+        List<ListedSeriesView> rows;
+        if (startsWith) {
+            String upper = name.toUpperCase(Locale.ROOT);
+            rows = seriesRepository.findByNamePrefixAfter(upper, prefixEnd(upper), escapeLike(upper) + "%",
+                    after != null ? after.getKey() : upper, id, limit());
+        } else {
+            rows = seriesRepository.findByNameAfter(containsPattern(name), after != null ? after.getKey() : "",
+                    id, limit());
+        }
+        return page(rows, last -> new KeysetCursor(last.getSortKey(), last.getId()));
+    }
+
+    /**
+     * The genre list is small and fixed, so it is one unpaginated feed
+     */
+    @Cacheable(cacheNames = CatalogCacheService.GENRES, key = "'tree'")
+    @Transactional(readOnly = true)
+    public List<NavigationItem> genres() {
+        return viewMapper.toNavigation(genreRepository.findAllByOrderByNameRuAsc());
+    }
+
+    @Cacheable(cacheNames = CatalogCacheService.AUTHORS, key = "@catalogCacheService.key('authors', #id)",
+            sync = true)
+    @Transactional(readOnly = true)
+    public Optional<NavigationItem> findAuthor(long id) {
+        return authorRepository.findById(id).map(viewMapper::toNavigation);
+    }
+
+    @Cacheable(cacheNames = CatalogCacheService.SERIES, key = "@catalogCacheService.key('series', #id)",
+            sync = true)
+    @Transactional(readOnly = true)
+    public Optional<NavigationItem> findSeries(long id) {
+        return seriesRepository.findById(id).map(viewMapper::toNavigation);
+    }
+
+    @Cacheable(cacheNames = CatalogCacheService.GENRES, key = "#id")
+    @Transactional(readOnly = true)
+    public Optional<NavigationItem> findGenre(long id) {
+        return genreRepository.findById(id).map(viewMapper::toNavigation);
+    }
+
+    /**
+     * Trims the {@code pageSize + 1} rows to a page and builds its list views with the authors,
+     * genres and annotations of its books
+     */
+    <T extends FeedBookView> BookCursorPage bookPage(List<T> rows, Function<T, KeysetCursor> cursorOf) {
+        CursorPage<T> page = page(rows, cursorOf);
+        List<T> books = page.getItems();
+        if (books.isEmpty()) {
+            return new BookCursorPage(List.of(), null);
+        }
+        List<Long> ids = books.stream().map(FeedBookView::getId).toList();
+        Map<Long, List<BookLinkView>> authors = byBook(bookRepository.findAuthorsOfBooks(ids));
+        Map<Long, List<BookLinkView>> genres = byBook(bookRepository.findGenresOfBooks(ids));
+        Map<Long, String> annotations = bookAnnotationRepository.findAnnotationsOfBooks(ids).stream()
+                .collect(Collectors.toMap(AnnotationView::getBookId, AnnotationView::getAnnotation));
+        List<BookItem> items = books.stream()
+                .map(book -> viewMapper.toItem(book,
+                        authors.getOrDefault(book.getId(), List.of()),
+                        genres.getOrDefault(book.getId(), List.of()),
+                        annotations.get(book.getId())))
+                .toList();
+        return new BookCursorPage(items, page.getNextCursor());
+    }
+
+    private <T> CursorPage<T> page(List<T> rows, Function<T, KeysetCursor> cursorOf) {
+        int pageSize = config.getPageSize();
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new CursorPage<>(items, cursorOf.apply(items.get(items.size() - 1)).encode());
+    }
+
+    int limit() {
+        return config.getPageSize() + 1;
+    }
+
+    private static Map<Long, List<BookLinkView>> byBook(List<BookLinkView> links) {
+        return links.stream().collect(Collectors.groupingBy(BookLinkView::getBookId));
+    }
+
+    static KeysetCursor decode(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+    }
+
+    private static LocalDateTime parseDate(String key) {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor date: " + key, e);
+        }
+    }
+
+    private static int parseNumber(String key) {
+        try {
+            return Integer.parseInt(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor number: " + key, e);
+        }
+    }
+
+    /**
+     * Upper bound of the keys starting with {@code prefix} in byte order: no key with the prefix
+     * continues with a code point above the last one
+     */
+    private static String prefixEnd(String prefix) {
+        return prefix + Character.toString(Character.MAX_CODE_POINT);
+    }
+
+    private static String containsPattern(String name) {
+        return "%" + escapeLike(name.trim().toUpperCase(Locale.ROOT)) + "%";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,159 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.entity.CatalogStats;
+import com.sopds.catalog.repository.AuthorRepository;
+import com.sopds.catalog.repository.BookRepository;
+import com.sopds.catalog.repository.CatalogStatsRepository;
+import com.sopds.catalog.repository.GenreRepository;
+import com.sopds.catalog.repository.SeriesRepository;
+import com.sopds.catalog.service.catalog.CatalogCounters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog counters for the main page, persisted in {@code catalog_stats}.
+ * <p>
+ * The scanner reports the books, authors and series it adds inside its writer transaction; they
+ * are added to the row with one UPDATE just before that transaction commits, so the counters
+ * commit or roll back together with the data. Requests read an immutable snapshot that is
+ * replaced after every change, without locking or querying. A scheduled job recounts everything
+ * exactly, under the row lock, to repair any drift.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogStatsService {
+
+    private final CatalogStatsRepository catalogStatsRepository;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final GenreRepository genreRepository;
+    private final SeriesRepository seriesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogGenerationService catalogGeneration;
+
+    private volatile CatalogCounters counters = CatalogCounters.EMPTY;
+
+    public CatalogCounters getCounters() {
+        return counters;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadOnStartup() {
+        if (!catalogStatsRepository.existsById(CatalogStats.SINGLETON_ID)) {
+            // Schemas created from the entities (the embedded benchmark database) have no row yet
+            catalogStatsRepository.save(CatalogStats.builder()
+                    .id(CatalogStats.SINGLETON_ID)
+                    .books(0L).authors(0L).genres(0L).series(0L)
+                    .build());
+            reconcile();
+            return;
+        }
+        refresh();
+    }
+
+    /**
+     * Records added (or, if negative, removed) items. Inside a transaction the counters are
+     * updated when it commits; outside of one immediately.
+     */
+    public void changed(long books, long authors, long series) {
+        if (books == 0 && authors == 0 && series == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> increment(books, authors, series));
+            refresh();
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.books += books;
+        pending.authors += authors;
+        pending.series += series;
+    }
+
+    public void scanCompleted(LocalDateTime finishedAt) {
+        catalogStatsRepository.updateLastScan(CatalogStats.SINGLETON_ID, finishedAt);
+        refresh();
+        catalogGeneration.advance();
+    }
+
+    /**
+     * Replaces the counters with exact counts. The row lock is taken before counting, so a writer
+     * transaction either commits before the counts are taken or adds its changes after them.
+     */
+    @Scheduled(cron = "${sopds.opds.stats-reconcile-cron:0 30 * * * ?}")
+    public void reconcile() {
+        CatalogCounters before = counters;
+        transactionTemplate.executeWithoutResult(status ->
+                catalogStatsRepository.findForUpdate(CatalogStats.SINGLETON_ID).ifPresent(stats -> {
+                    stats.setBooks(bookRepository.countAvailableBooks());
+                    stats.setAuthors(authorRepository.count());
+                    stats.setGenres(genreRepository.count());
+                    stats.setSeries(seriesRepository.count());
+                    stats.setReconciledAt(LocalDateTime.now());
+                }));
+        refresh();
+        CatalogCounters after = counters;
+        if (before.getBooks() != after.getBooks() || before.getAuthors() != after.getAuthors()
+                || before.getSeries() != after.getSeries()) {
+            log.info("Catalog statistics reconciled: books {} -> {}, authors {} -> {}, series {} -> {}",
+                    before.getBooks(), after.getBooks(), before.getAuthors(), after.getAuthors(),
+                    before.getSeries(), after.getSeries());
+            catalogGeneration.advance();
+        }
+    }
+
+    private void increment(long books, long authors, long series) {
+        if (catalogStatsRepository.increment(CatalogStats.SINGLETON_ID, books, authors, series) == 0) {
+            log.warn("Catalog statistics row is missing, counters will be restored by the next reconcile");
+        }
+    }
+
+    private void refresh() {
+        counters = catalogStatsRepository.findById(CatalogStats.SINGLETON_ID)
+                .map(stats -> new CatalogCounters(stats.getBooks(), stats.getAuthors(), stats.getGenres(),
+                        stats.getSeries(), stats.getLastScan()))
+                .orElse(CatalogCounters.EMPTY);
+    }
+
+    /**
+     * Changes of one transaction, written just before it commits
+     */
+    private class PendingChanges implements TransactionSynchronization {
+        private long books;
+        private long authors;
+        private long series;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            increment(books, authors, series);
+        }
+
+        @Override
+        public void afterCommit() {
+            refresh();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CatalogStatsService.this);
+        }
+    }
+}
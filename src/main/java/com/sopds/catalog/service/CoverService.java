@@ -0,0 +1,234 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.CoverConfiguration;
+import com.sopds.catalog.entity.Book;
+import com.sopds.catalog.service.cover.CoverSize;
+import com.sopds.catalog.service.download.BookFile;
+import com.sopds.catalog.service.parser.Fb2Parser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.imgscalr.Scalr;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed cache of book covers on disk.
+ * <p>
+ * The scanner stores each cover once under the SHA-256 of its bytes ({@code ab/abcdef...}), so
+ * books sharing a cover share the file, and the key never changes for the same image. Resized
+ * JPEGs ({@code ab/abcdef...-thumbnail.jpg}) are generated on first request. Concurrent requests
+ * for the same missing image wait for a single generation. Files are written to a temporary
+ * name and moved into place, so a reader never sees a partial file.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoverService {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final CoverConfiguration config;
+    private final BookFileService bookFileService;
+    private final Fb2Parser fb2Parser;
+
+    private final ConcurrentMap<Path, CompletableFuture<Path>> generating = new ConcurrentHashMap<>();
+
+    /**
+     * Handler for {@link Fb2Parser#parse(InputStream, Fb2Parser.CoverHandler)} during scans, or
+     * null if cover extraction is disabled
+     */
+    public Fb2Parser.CoverHandler scanHandler() {
+        return config.isExtractEnabled() ? this::store : null;
+    }
+
+    /**
+     * Stores a decoded cover image under its content hash.
+     *
+     * @return the cover key, null for an empty image
+     * @throws IOException if the image is larger than the configured limit or cannot be written
+     */
+    public String store(InputStream image, String contentType) throws IOException {
+        Path dir = Paths.get(config.getCacheDir());
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, "cover-", ".tmp");
+        try {
+            MessageDigest sha = sha256();
+            long size;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), sha)) {
+                size = copy(image, out, config.getMaxCoverBytes());
+            }
+            if (size == 0) {
+                return null;
+            }
+            String key = HexFormat.of().formatHex(sha.digest());
+            Path original = originalPath(key);
+            if (!Files.exists(original)) {
+                Files.createDirectories(original.getParent());
+                try {
+                    Files.move(temp, original, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Another book with the same cover stored the same bytes first
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The book's cover in the given size, generated if it is not cached yet. A cover original
+     * missing from the cache is extracted from the book file again.
+     *
+     * @return empty if the book has no cover or it is not a readable image
+     */
+    public Optional<Path> cover(Book book, CoverSize size) throws IOException {
+        String key = book.getCover();
+        if (key == null || !KEY.matcher(key).matches()) {
+            return Optional.empty();
+        }
+        Path target = resizedPath(key, size);
+        if (Files.exists(target)) {
+            return Optional.of(target);
+        }
+
+        CompletableFuture<Path> generation = new CompletableFuture<>();
+        CompletableFuture<Path> running = generating.putIfAbsent(target, generation);
+        if (running != null) {
+            return Optional.ofNullable(await(running));
+        }
+        try {
+            // The previous generation may have finished between the check above and putIfAbsent
+            Path result = Files.exists(target) ? target : generate(book, key, size, target);
+            generation.complete(result);
+            return Optional.ofNullable(result);
+        } catch (IOException | RuntimeException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            generating.remove(target, generation);
+        }
+    }
+
+    private Path generate(Book book, String key, CoverSize size, Path target) throws IOException {
+        Path original = originalPath(key);
+        if (!Files.exists(original) && !extract(book, key)) {
+            log.debug("Cover {} of book {} is no longer available", key, book.getId());
+            return null;
+        }
+        BufferedImage image = ImageIO.read(original.toFile());
+        if (image == null) {
+            log.debug("Cover {} of book {} is not a supported image", key, book.getId());
+            return null;
+        }
+
+        long start = System.nanoTime();
+        int pixels = size.getPixels();
+        BufferedImage scaled = image.getWidth() <= pixels && image.getHeight() <= pixels
+                ? image
+                : Scalr.resize(image, Scalr.Method.QUALITY, Scalr.Mode.AUTOMATIC, pixels, pixels);
+        // JPEG has no alpha channel: flatten onto white
+        BufferedImage rgb = new BufferedImage(scaled.getWidth(), scaled.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.drawImage(scaled, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path temp = Files.createTempFile(target.getParent(), "cover-", ".tmp");
+        try {
+            if (!ImageIO.write(rgb, "jpg", temp.toFile())) {
+                throw new IOException("No JPEG writer available");
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+            image.flush();
+            scaled.flush();
+            rgb.flush();
+        }
+        log.debug("Generated {} cover {} in {} ms", size.key(), key, (System.nanoTime() - start) / 1_000_000);
+        return target;
+    }
+
+    /**
+     * Reads the cover out of the book file again, for a cache that was cleared
+     */
+    private boolean extract(Book book, String key) throws IOException {
+        if (!"fb2".equalsIgnoreCase(book.getFormat())) {
+            return false;
+        }
+        Optional<BookFile> bookFile = bookFileService.locate(book);
+        if (bookFile.isEmpty()) {
+            return false;
+        }
+        try (InputStream in = bookFileService.open(bookFile.get())) {
+            Fb2Parser.Fb2Metadata metadata = fb2Parser.parse(in, this::store);
+            return metadata != null && key.equals(metadata.getCover());
+        }
+    }
+
+    private Path originalPath(String key) {
+        return Paths.get(config.getCacheDir(), key.substring(0, 2), key);
+    }
+
+    private Path resizedPath(String key, CoverSize size) {
+        return Paths.get(config.getCacheDir(), key.substring(0, 2), key + "-" + size.key() + ".jpg");
+    }
+
+    private static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > limit) {
+                throw new IOException("Cover is larger than " + limit + " bytes");
+            }
+            out.write(buffer, 0, read);
+        }
+        return total;
+    }
+
+    private static Path await(CompletableFuture<Path> generation) throws IOException {
+        try {
+            return generation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
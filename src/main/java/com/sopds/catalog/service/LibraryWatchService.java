@@ -0,0 +1,277 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.ScannerConfiguration;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-real-time indexing: watches the library tree and hands new and changed files to
+ * {@link ScannerSchedulerService#triggerIncrementalScan} instead of waiting for the next full scan.
+ * <p>
+ * Events are coalesced per path and a path is indexed only after {@code watchDebounceMs} without
+ * further events, so a book that is still being copied is indexed once, when the copy is done.
+ * Mounts without native change notification (NFS, SMB) are polled by comparing modification times.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LibraryWatchService {
+
+    private static final Set<String> POLLED_FILE_STORES = Set.of(
+            "nfs", "nfs4", "cifs", "smb", "smbfs", "smb2", "fuse.sshfs", "9p");
+
+    private final ScannerSchedulerService schedulerService;
+    private final ScannerConfiguration config;
+
+    /**
+     * Changed paths and the time of their latest event
+     */
+    private final Map<Path, Long> pending = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private WatchService watchService;
+    private Map<Path, FileStamp> pollSnapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isWatchEnabled()) {
+            log.info("Library watch mode is disabled");
+            return;
+        }
+
+        Path root = Paths.get(config.getRootPath());
+        if (!Files.isDirectory(root)) {
+            log.warn("Library watch mode disabled, library path does not exist: {}", root);
+            return;
+        }
+
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "library-watch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long debounceMs = Math.max(100, config.getWatchDebounceMs());
+        scheduler.scheduleWithFixedDelay(this::flushPending, debounceMs, debounceMs / 2, TimeUnit.MILLISECONDS);
+
+        if (config.isWatchPolling() || isPolledFileStore(root) || !startWatching(root)) {
+            long pollSeconds = Math.max(1, config.getWatchPollSeconds());
+            log.info("Watching library {} by polling every {} s", root, pollSeconds);
+            scheduler.scheduleWithFixedDelay(() -> poll(root), 0, pollSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        closeWatchService();
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Failed to close watch service", e);
+            }
+            watchService = null;
+        }
+    }
+
+    private boolean startWatching(Path root) {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(root);
+        } catch (IOException e) {
+            log.warn("Native file system events unavailable for {}, falling back to polling", root, e);
+            closeWatchService();
+            watchedDirectories.clear();
+            return false;
+        }
+
+        WatchService service = watchService;
+        Thread thread = new Thread(() -> processEvents(service), "library-watch-events");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching library {} ({} directories)", root, watchedDirectories.size());
+        return true;
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path subdir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = subdir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, subdir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                log.warn("Failed to watch: {}", file, exc);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void processEvents(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = watchedDirectories.get(key);
+                if (dir != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        handleEvent(dir, event);
+                    }
+                }
+                if (!key.reset()) {
+                    // Directory was deleted or became inaccessible
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Library watch service closed");
+        }
+    }
+
+    private void handleEvent(Path dir, WatchEvent<?> event) {
+        long now = System.currentTimeMillis();
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            // Events were lost: index the whole directory; scanPaths loads the manifest entries below it,
+            // so unchanged files are skipped
+            log.warn("Watch events overflowed for {}", dir);
+            pending.put(dir, now);
+            return;
+        }
+
+        Path path = dir.resolve((Path) event.context());
+        if (Files.isDirectory(path)) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                try {
+                    registerTree(path);
+                } catch (IOException e) {
+                    log.warn("Failed to watch new directory: {}", path, e);
+                }
+                pending.put(path, now);
+            }
+            return;
+        }
+        pending.put(path, now);
+    }
+
+    /**
+     * Full walk comparing modification times and sizes with the previous poll. The first poll only
+     * records the current state; what changed before it is picked up by the regular scans.
+     */
+    private void poll(Path root) {
+        Map<Path, FileStamp> snapshot = new HashMap<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    snapshot.put(file, new FileStamp(attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to poll library {}", root, e);
+            return;
+        }
+
+        if (pollSnapshot != null) {
+            long now = System.currentTimeMillis();
+            snapshot.forEach((file, stamp) -> {
+                if (!stamp.equals(pollSnapshot.get(file))) {
+                    pending.put(file, now);
+                }
+            });
+        }
+        pollSnapshot = snapshot;
+    }
+
+    /**
+     * Hands paths that have been quiet for the debounce period to the scanner.
+     */
+    private void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long quietSince = System.currentTimeMillis() - config.getWatchDebounceMs();
+        List<Path> ready = new ArrayList<>();
+        pending.forEach((path, lastEvent) -> {
+            if (lastEvent <= quietSince && pending.remove(path, lastEvent)) {
+                ready.add(path);
+            }
+        });
+        if (ready.isEmpty()) {
+            return;
+        }
+
+        // A new directory is walked as a whole, so paths below it are already covered
+        List<Path> paths = ready.stream()
+                .filter(path -> ready.stream().noneMatch(other -> other != path && path.startsWith(other)))
+                .toList();
+
+        log.info("Indexing {} changed paths", paths.size());
+        if (!schedulerService.triggerIncrementalScan(paths)) {
+            // Another scan is running, try again after the next quiet period
+            long now = System.currentTimeMillis();
+            paths.forEach(path -> pending.merge(path, now, Math::max));
+        }
+    }
+
+    private record FileStamp(long size, long lastModified) {
+    }
+
+    private static boolean isPolledFileStore(Path root) {
+        try {
+            String type = Files.getFileStore(root).type().toLowerCase(Locale.ROOT);
+            if (POLLED_FILE_STORES.contains(type)) {
+                log.info("Library is on a {} mount, native file system events are not reliable", type);
+                return true;
+            }
+        } catch (IOException e) {
+            log.debug("Failed to determine file store of {}", root, e);
+        }
+        return false;
+    }
+}
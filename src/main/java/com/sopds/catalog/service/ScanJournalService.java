@@ -0,0 +1,157 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.entity.ScanCheckpoint;
+import com.sopds.catalog.entity.ScanRun;
+import com.sopds.catalog.repository.ScanCheckpointRepository;
+import com.sopds.catalog.repository.ScanRunRepository;
+import com.sopds.catalog.service.scanner.ScanJournal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Persists scan runs and their checkpoints, so a scan interrupted by an abort or a JVM restart
+ * continues where it stopped instead of walking the whole library again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScanJournalService implements ScanJournal.Checkpoints {
+
+    private static final List<ScanRun.Status> RESUMABLE = List.of(ScanRun.Status.RUNNING, ScanRun.Status.ABORTED);
+
+    private final ScanRunRepository scanRunRepository;
+    private final ScanCheckpointRepository scanCheckpointRepository;
+
+    /**
+     * Resumes the latest unfinished run for the library root, or starts a new one.
+     */
+    public ScanJournal open(Path root) {
+        String rootPath = root.toAbsolutePath().normalize().toString();
+        Optional<ScanRun> unfinished = scanRunRepository.findFirstByStatusInOrderByIdDesc(RESUMABLE);
+
+        if (unfinished.isPresent() && unfinished.get().getRootPath().equals(rootPath)) {
+            ScanRun run = unfinished.get();
+            run.setStatus(ScanRun.Status.RUNNING);
+            scanRunRepository.save(run);
+
+            List<ScanCheckpoint> checkpoints = scanCheckpointRepository.findByRunId(run.getId());
+            Set<String> directories = checkpoints.stream()
+                    .filter(c -> c.getKind() == ScanCheckpoint.Kind.DIRECTORY)
+                    .map(ScanCheckpoint::getPath)
+                    .collect(Collectors.toSet());
+            Set<String> archives = checkpoints.stream()
+                    .filter(c -> c.getKind() == ScanCheckpoint.Kind.ARCHIVE && c.getCompleted())
+                    .map(ScanCheckpoint::getPath)
+                    .collect(Collectors.toSet());
+            Map<String, Integer> positions = new HashMap<>();
+            for (ScanCheckpoint c : checkpoints) {
+                if (c.getKind() == ScanCheckpoint.Kind.ARCHIVE && !c.getCompleted() && c.getEntryPosition() != null) {
+                    positions.put(c.getPath(), c.getEntryPosition());
+                }
+            }
+
+            log.info("Resuming scan run {} started at {}: {} directories and {} archives done, {} archives in progress",
+                    run.getId(), run.getStartedAt(), directories.size(), archives.size(), positions.size());
+            return new ScanJournal(run.getId(), true, root, toMillis(run.getStartedAt()), this,
+                    directories, archives, positions);
+        }
+
+        unfinished.ifPresent(run -> {
+            // A run for another library root cannot be resumed
+            log.info("Discarding unfinished scan run {} for {}", run.getId(), run.getRootPath());
+            finish(run.getId(), ScanRun.Status.COMPLETED);
+        });
+
+        ScanRun run = scanRunRepository.save(ScanRun.builder()
+                .rootPath(rootPath)
+                .status(ScanRun.Status.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build());
+        log.info("Started scan run {}", run.getId());
+        return new ScanJournal(run.getId(), false, root, toMillis(run.getStartedAt()), this,
+                Set.of(), Set.of(), Map.of());
+    }
+
+    /**
+     * Closes the run. Checkpoints of a completed run are no longer needed and are deleted;
+     * an aborted run keeps them so the next scan resumes it.
+     */
+    public void finish(long runId, ScanRun.Status status) {
+        scanRunRepository.findById(runId).ifPresent(run -> {
+            run.setStatus(status);
+            run.setFinishedAt(LocalDateTime.now());
+            scanRunRepository.save(run);
+        });
+        if (status == ScanRun.Status.COMPLETED) {
+            scanCheckpointRepository.deleteByRunId(runId);
+        }
+    }
+
+    @Override
+    public void directoryCompleted(long runId, String path) {
+        record(runId, path, ScanCheckpoint.Kind.DIRECTORY, null, true);
+    }
+
+    @Override
+    public void archiveProgress(long runId, String path, Integer position, boolean completed) {
+        record(runId, path, ScanCheckpoint.Kind.ARCHIVE, position, completed);
+    }
+
+    /**
+     * State the next scan would resume from, for the scanner API.
+     */
+    public Map<String, Object> describeResumableState() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        Optional<ScanRun> unfinished = scanRunRepository.findFirstByStatusInOrderByIdDesc(RESUMABLE);
+        state.put("resumable", unfinished.isPresent());
+        unfinished.ifPresent(run -> {
+            state.put("runId", run.getId());
+            state.put("rootPath", run.getRootPath());
+            state.put("runStatus", run.getStatus().name());
+            state.put("startedAt", run.getStartedAt());
+            state.put("lastCheckpointAt", run.getCheckpointAt());
+            state.put("completedDirectories", scanCheckpointRepository.countByRunIdAndKindAndCompleted(
+                    run.getId(), ScanCheckpoint.Kind.DIRECTORY, true));
+            state.put("completedArchives", scanCheckpointRepository.countByRunIdAndKindAndCompleted(
+                    run.getId(), ScanCheckpoint.Kind.ARCHIVE, true));
+            Map<String, Integer> archivesInProgress = new LinkedHashMap<>();
+            for (ScanCheckpoint c : scanCheckpointRepository.findByRunIdAndKindAndCompleted(
+                    run.getId(), ScanCheckpoint.Kind.ARCHIVE, false)) {
+                archivesInProgress.put(c.getPath(), c.getEntryPosition());
+            }
+            state.put("archivesInProgress", archivesInProgress);
+        });
+        return state;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void record(long runId, String path, ScanCheckpoint.Kind kind, Integer position, boolean completed) {
+        try {
+            // Checkpoints are written by the single writer thread only, so find-then-save cannot race
+            ScanCheckpoint checkpoint = scanCheckpointRepository.findByRunIdAndPath(runId, path)
+                    .orElseGet(() -> ScanCheckpoint.builder().runId(runId).path(path).kind(kind).build());
+            checkpoint.setEntryPosition(position);
+            checkpoint.setCompleted(completed);
+            scanCheckpointRepository.save(checkpoint);
+            scanRunRepository.updateCheckpointAt(runId, LocalDateTime.now());
+        } catch (Exception e) {
+            // A lost checkpoint only means more work on resume, it must not fail the scan
+            log.warn("Failed to record scan checkpoint {} {}", kind, path, e);
+        }
+    }
+}
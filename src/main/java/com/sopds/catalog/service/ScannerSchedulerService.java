@@ -8,6 +8,8 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
@@ -51,6 +53,26 @@ public class ScannerSchedulerService {
         executeScan();
     }
 
+    /**
+     * Index changed paths reported by the library watcher.
+     *
+     * @return false if another scan is running and the paths were not indexed
+     */
+    public boolean triggerIncrementalScan(Collection<Path> paths) {
+        if (!isScanning.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            scannerService.scanPaths(paths);
+        } catch (Exception e) {
+            log.error("Error indexing changed paths", e);
+        } finally {
+            isScanning.set(false);
+        }
+        return true;
+    }
+
     private void executeScan() {
         if (!isScanning.compareAndSet(false, true)) {
             log.warn("Scan already in progress, skipping...");
@@ -0,0 +1,86 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.repository.BookRepository;
+import com.sopds.catalog.repository.KeysetCursor;
+import com.sopds.catalog.service.catalog.BookCursorPage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Ranked book search backed by the PostgreSQL full-text and trigram indexes.
+ * <p>
+ * The search vectors are refreshed by the scanner for every batch of books it writes. On other
+ * databases (the embedded benchmark database) search falls back to a title substring filter and
+ * refreshing is a no-op.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    /**
+     * Above every score: a rank never exceeds a few units
+     */
+    private static final BigDecimal FIRST_PAGE_SCORE = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final BookRepository bookRepository;
+    private final CatalogService catalogService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean fullTextAvailable;
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public BookCursorPage searchBooks(String query, String cursor) {
+        if (!isFullTextAvailable()) {
+            return catalogService.searchBooks(query, cursor);
+        }
+        KeysetCursor after = CatalogService.decode(cursor);
+        BigDecimal score = after != null ? parseScore(after.getKey()) : FIRST_PAGE_SCORE;
+        return catalogService.bookPage(
+                bookRepository.searchRanked(query.trim(), score, after != null ? after.getId() : 0,
+                        catalogService.limit()),
+                last -> new KeysetCursor(last.getScore().toPlainString(), last.getId()));
+    }
+
+    /**
+     * Recomputes the search vectors of books the scanner has just written. A failure only leaves
+     * these books without full-text hits until they are written again, so it is logged, not thrown.
+     */
+    public void indexBooks(Collection<Long> bookIds) {
+        if (bookIds.isEmpty() || !isFullTextAvailable()) {
+            return;
+        }
+        try {
+            bookRepository.refreshSearchVectors(bookIds);
+        } catch (Exception e) {
+            log.error("Failed to refresh search vectors of {} books", bookIds.size(), e);
+        }
+    }
+
+    public boolean isFullTextAvailable() {
+        if (fullTextAvailable == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            fullTextAvailable = "PostgreSQL".equalsIgnoreCase(database);
+        }
+        return fullTextAvailable;
+    }
+
+    private static BigDecimal parseScore(String key) {
+        try {
+            return new BigDecimal(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor score: " + key, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.sopds.catalog.service.catalog;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One keyset page of books. The page query joins the series of each book; authors, genres and
+ * annotations are loaded for the whole page with one statement each.
+ */
+@Value
+public class BookCursorPage {
+
+    List<BookItem> books;
+
+    /**
+     * Encoded cursor of the next page, null on the last page
+     */
+    String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.sopds.catalog.service.catalog;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A book as the catalog lists it: the columns of the page query with the authors, genres and
+ * annotation of the book already attached, so feeds and templates never go back to the database.
+ *
+ * @param series     null if the book is not part of a series
+ * @param annotation null if the book has none
+ */
+public record BookItem(
+        Long id,
+        String title,
+        String lang,
+        String format,
+        String path,
+        String filename,
+        BigDecimal filesize,
+        LocalDateTime registerDate,
+        LocalDateTime updateDate,
+        String cover,
+        SeriesLink series,
+        List<BookLink> authors,
+        List<BookLink> genres,
+        String annotation) {
+}
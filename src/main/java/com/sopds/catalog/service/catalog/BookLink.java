@@ -0,0 +1,9 @@
+package com.sopds.catalog.service.catalog;
+
+/**
+ * An author or genre of a listed book
+ *
+ * @param code genre code, null for authors
+ */
+public record BookLink(Long id, String code, String name) {
+}
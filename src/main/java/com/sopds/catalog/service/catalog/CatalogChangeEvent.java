@@ -0,0 +1,24 @@
+package com.sopds.catalog.service.catalog;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Published by the scanner after a chunk of books has committed, naming everything whose
+ * cached views the chunk made stale: the written books, and the authors and series they
+ * belong to now or belonged to before the update.
+ */
+@Value
+public class CatalogChangeEvent {
+
+    Set<Long> bookIds;
+
+    Set<Long> authorIds;
+
+    Set<Long> seriesIds;
+
+    public boolean isEmpty() {
+        return bookIds.isEmpty() && authorIds.isEmpty() && seriesIds.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package com.sopds.catalog.service.catalog;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of the catalog counters.
+ */
+@Value
+public class CatalogCounters {
+
+    public static final CatalogCounters EMPTY = new CatalogCounters(0, 0, 0, 0, null);
+
+    long books;
+
+    long authors;
+
+    long genres;
+
+    long series;
+
+    /**
+     * End of the last completed full scan, null if there was none
+     */
+    LocalDateTime lastScan;
+}
@@ -0,0 +1,44 @@
+package com.sopds.catalog.service.catalog;
+
+import com.sopds.catalog.entity.Author;
+import com.sopds.catalog.entity.Genre;
+import com.sopds.catalog.entity.Series;
+import com.sopds.catalog.repository.BookRepository.BookLinkView;
+import com.sopds.catalog.repository.BookRepository.FeedBookView;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+
+import java.util.List;
+
+/**
+ * Builds the list views of a page from the projections of its page query and batched association queries,
+ * and the navigation items of authors, series and genres.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface CatalogViewMapper {
+
+    @Mapping(target = "series", source = "book")
+    @Mapping(target = "authors", source = "authors")
+    @Mapping(target = "genres", source = "genres")
+    @Mapping(target = "annotation", source = "annotation")
+    BookItem toItem(FeedBookView book, List<BookLinkView> authors, List<BookLinkView> genres, String annotation);
+
+    BookLink toLink(BookLinkView link);
+
+    @Mapping(target = "name", source = "fullName")
+    NavigationItem toNavigation(Author author);
+
+    NavigationItem toNavigation(Series series);
+
+    @Mapping(target = "name", source = "nameRu")
+    NavigationItem toNavigation(Genre genre);
+
+    List<NavigationItem> toNavigation(List<Genre> genres);
+
+    default SeriesLink toSeries(FeedBookView book) {
+        return book.getSeriesId() != null
+                ? new SeriesLink(book.getSeriesId(), book.getSeriesName(), book.getSeriesNumber())
+                : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.sopds.catalog.service.catalog;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One keyset page of a catalog listing.
+ */
+@Value
+public class CursorPage<T> {
+
+    List<T> items;
+
+    /**
+     * Encoded cursor of the next page, null on the last page
+     */
+    String nextCursor;
+}
@@ -0,0 +1,8 @@
+package com.sopds.catalog.service.catalog;
+
+/**
+ * An author, series or genre as the navigation feeds name it. Immutable and detached from the
+ * persistence context, so it can be cached and shared between requests.
+ */
+public record NavigationItem(Long id, String name) {
+}
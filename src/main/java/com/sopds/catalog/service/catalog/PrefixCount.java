@@ -0,0 +1,19 @@
+package com.sopds.catalog.service.catalog;
+
+import lombok.Value;
+
+/**
+ * One group of the alphabet navigation: the items whose sort key starts with a prefix.
+ */
+@Value
+public class PrefixCount {
+
+    String prefix;
+
+    long count;
+
+    /**
+     * The group is large enough to be split by the next character, otherwise it is listed
+     */
+    boolean expandable;
+}
@@ -0,0 +1,147 @@
+package com.sopds.catalog.service.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Item counts per upper-cased sort key prefix of 1 to {@code depth} characters.
+ * <p>
+ * Every node holds the number of keys below it, so one level of the navigation is read from
+ * the children of a single node, without touching the items. Updates are lock-free; a reader
+ * running concurrently with an update may see the new count on some levels before others.
+ */
+public class PrefixTree {
+
+    /**
+     * SOPDS alphabet codes of the first character of a key; 0 selects all of them
+     */
+    public static final int ALL = 0;
+    public static final int CYRILLIC = 1;
+    public static final int LATIN = 2;
+    public static final int DIGITS = 3;
+    public static final int OTHER = 9;
+
+    private final int depth;
+    private final Node root = new Node();
+
+    public PrefixTree(int depth) {
+        this.depth = Math.max(1, depth);
+    }
+
+    /**
+     * Adds {@code delta} items with the given sort key; a negative delta removes them.
+     */
+    public void add(String key, long delta) {
+        String prefix = normalize(key);
+        Node node = root;
+        node.count.addAndGet(delta);
+        for (int i = 0; i < prefix.length(); ) {
+            int end = prefix.offsetByCodePoints(i, 1);
+            node = node.children.computeIfAbsent(prefix.substring(i, end), c -> new Node());
+            node.count.addAndGet(delta);
+            i = end;
+        }
+    }
+
+    /**
+     * Groups one character longer than {@code prefix}, in key order. Groups with more than
+     * {@code splitItems} items are expandable until the prefix reaches the tree depth.
+     *
+     * @param alphabet at the top level, only groups starting in this alphabet; {@link #ALL} for every group
+     */
+    public List<PrefixCount> children(String prefix, int alphabet, long splitItems) {
+        String normalized = normalize(prefix);
+        Node node = find(normalized);
+        if (node == null) {
+            return List.of();
+        }
+        boolean expandable = normalized.codePointCount(0, normalized.length()) + 1 < depth;
+        List<PrefixCount> groups = new ArrayList<>(node.children.size());
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            long count = child.getValue().count.get();
+            if (count <= 0 || (normalized.isEmpty() && alphabet != ALL && alphabetOf(child.getKey()) != alphabet)) {
+                continue;
+            }
+            groups.add(new PrefixCount(normalized + child.getKey(), count, expandable && count > splitItems));
+        }
+        return groups;
+    }
+
+    /**
+     * Number of items under {@code prefix}
+     */
+    public long count(String prefix) {
+        Node node = find(normalize(prefix));
+        return node != null ? node.count.get() : 0;
+    }
+
+    /**
+     * Number of items whose key starts in the alphabet
+     */
+    public long countAlphabet(int alphabet) {
+        if (alphabet == ALL) {
+            return root.count.get();
+        }
+        long count = 0;
+        for (Map.Entry<String, Node> child : root.children.entrySet()) {
+            if (alphabetOf(child.getKey()) == alphabet) {
+                count += child.getValue().count.get();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * SOPDS alphabet code of the first character of the text
+     */
+    public static int alphabetOf(String text) {
+        if (text == null || text.isEmpty()) {
+            return OTHER;
+        }
+        int c = text.codePointAt(0);
+        if (Character.isDigit(c)) {
+            return DIGITS;
+        }
+        if (Character.isLetter(c)) {
+            Character.UnicodeScript script = Character.UnicodeScript.of(c);
+            if (script == Character.UnicodeScript.CYRILLIC) {
+                return CYRILLIC;
+            }
+            if (script == Character.UnicodeScript.LATIN) {
+                return LATIN;
+            }
+        }
+        return OTHER;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; ) {
+            int end = prefix.offsetByCodePoints(i, 1);
+            node = node.children.get(prefix.substring(i, end));
+            i = end;
+        }
+        return node;
+    }
+
+    /**
+     * The first {@code depth} characters of the key, each upper-cased on its own so that the
+     * prefix never grows longer than the key (as {@code "ß".toUpperCase()} would)
+     */
+    private String normalize(String key) {
+        if (key == null || key.isEmpty()) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder(depth);
+        key.codePoints().limit(depth).forEach(c -> prefix.appendCodePoint(Character.toUpperCase(c)));
+        return prefix.toString();
+    }
+
+    private static class Node {
+        private final AtomicLong count = new AtomicLong();
+        private final Map<String, Node> children = new ConcurrentSkipListMap<>();
+    }
+}
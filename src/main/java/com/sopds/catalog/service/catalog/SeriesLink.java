@@ -0,0 +1,9 @@
+package com.sopds.catalog.service.catalog;
+
+/**
+ * The series of a listed book
+ *
+ * @param number position of the book in the series, may be null
+ */
+public record SeriesLink(Long id, String name, Integer number) {
+}
@@ -0,0 +1,48 @@
+package com.sopds.catalog.service.cover;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The fixed sizes covers are served in; each is resized once and cached.
+ */
+public enum CoverSize {
+
+    /**
+     * Thumbnails of feed entries
+     */
+    THUMBNAIL(160),
+
+    MEDIUM(400),
+
+    /**
+     * The cover page of a book
+     */
+    LARGE(800);
+
+    /**
+     * Largest width or height in pixels
+     */
+    private final int pixels;
+
+    CoverSize(int pixels) {
+        this.pixels = pixels;
+    }
+
+    public int getPixels() {
+        return pixels;
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Optional<CoverSize> fromKey(String key) {
+        for (CoverSize size : values()) {
+            if (size.key().equalsIgnoreCase(key)) {
+                return Optional.of(size);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,36 @@
+package com.sopds.catalog.service.download;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Location of a book's content on disk: either a loose file or an entry of a ZIP archive.
+ */
+@Value
+public class BookFile {
+
+    /**
+     * The book file itself, or the archive that holds it
+     */
+    Path file;
+
+    /**
+     * Name of the archive entry, null for a loose file
+     */
+    String entryName;
+
+    /**
+     * Uncompressed size in bytes, -1 if the archive does not record it
+     */
+    long length;
+
+    /**
+     * Modification time of the file or archive, in milliseconds
+     */
+    long lastModified;
+
+    public boolean isArchiveEntry() {
+        return entryName != null;
+    }
+}
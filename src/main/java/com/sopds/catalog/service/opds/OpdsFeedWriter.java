@@ -0,0 +1,203 @@
+package com.sopds.catalog.service.opds;
+
+import com.sopds.catalog.service.catalog.BookItem;
+import com.sopds.catalog.service.catalog.BookLink;
+import com.sopds.catalog.service.catalog.SeriesLink;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Writes an OPDS 1.2 Atom feed element by element straight to the response stream, so a feed is
+ * never held in memory as a DOM or a rendered template.
+ */
+public class OpdsFeedWriter implements AutoCloseable {
+
+    public static final String NAVIGATION_TYPE = "application/atom+xml;profile=opds-catalog;kind=navigation";
+    public static final String ACQUISITION_TYPE = "application/atom+xml;profile=opds-catalog;kind=acquisition";
+    public static final String OPENSEARCH_TYPE = "application/opensearchdescription+xml";
+
+    private static final String ATOM_NS = "http://www.w3.org/2005/Atom";
+    private static final String DC_NS = "http://purl.org/dc/terms/";
+    private static final String OPDS_NS = "http://opds-spec.org/2010/catalog";
+    private static final String ACQUISITION_REL = "http://opds-spec.org/acquisition";
+    private static final String IMAGE_REL = "http://opds-spec.org/image";
+    private static final String THUMBNAIL_REL = "http://opds-spec.org/image/thumbnail";
+
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newFactory();
+
+    private final XMLStreamWriter xml;
+    private final String contextPath;
+
+    /**
+     * @param contextPath prefix of all application-relative links
+     */
+    public OpdsFeedWriter(OutputStream out, String contextPath) throws XMLStreamException {
+        this.xml = FACTORY.createXMLStreamWriter(out, "UTF-8");
+        this.contextPath = contextPath;
+    }
+
+    /**
+     * Writes the feed header with its self, start and search links.
+     */
+    public void startFeed(String id, String title, String selfHref, String selfType) throws XMLStreamException {
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.setDefaultNamespace(ATOM_NS);
+        xml.setPrefix("dc", DC_NS);
+        xml.setPrefix("opds", OPDS_NS);
+        xml.writeStartElement(ATOM_NS, "feed");
+        xml.writeDefaultNamespace(ATOM_NS);
+        xml.writeNamespace("dc", DC_NS);
+        xml.writeNamespace("opds", OPDS_NS);
+        element("id", id);
+        element("title", title);
+        element("updated", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS)));
+        link("self", selfHref, selfType, null);
+        link("start", "/opds", NAVIGATION_TYPE, null);
+        link("search", "/opds/opensearch.xml", OPENSEARCH_TYPE, null);
+    }
+
+    public void nextLink(String href, String type) throws XMLStreamException {
+        link("next", href, type, null);
+    }
+
+    public void navigationEntry(String id, String title, String href, String type, String content)
+            throws XMLStreamException {
+        xml.writeStartElement(ATOM_NS, "entry");
+        element("id", id);
+        element("title", title);
+        element("updated", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS)));
+        link("subsection", href, type, null);
+        if (content != null) {
+            xml.writeStartElement(ATOM_NS, "content");
+            xml.writeAttribute("type", "text");
+            xml.writeCharacters(sanitize(content));
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    /**
+     * @param contentType MIME type of the book file for the acquisition link
+     */
+    public void bookEntry(BookItem book, String contentType) throws XMLStreamException {
+        xml.writeStartElement(ATOM_NS, "entry");
+        element("id", "urn:sopds:book:" + book.id());
+        element("title", book.title());
+        LocalDateTime updated = book.updateDate() != null ? book.updateDate() : book.registerDate();
+        element("updated", timestamp(updated));
+
+        for (BookLink author : book.authors()) {
+            xml.writeStartElement(ATOM_NS, "author");
+            element("name", author.name());
+            element("uri", contextPath + "/opds/authors/" + author.id());
+            xml.writeEndElement();
+        }
+        for (BookLink genre : book.genres()) {
+            xml.writeEmptyElement(ATOM_NS, "category");
+            xml.writeAttribute("term", sanitize(genre.code()));
+            xml.writeAttribute("label", sanitize(genre.name()));
+        }
+        if (book.lang() != null) {
+            xml.writeStartElement(DC_NS, "language");
+            xml.writeCharacters(sanitize(book.lang()));
+            xml.writeEndElement();
+        }
+        xml.writeStartElement(DC_NS, "issued");
+        xml.writeCharacters(timestamp(book.registerDate()));
+        xml.writeEndElement();
+
+        if (book.annotation() != null) {
+            xml.writeStartElement(ATOM_NS, "summary");
+            xml.writeAttribute("type", "text");
+            xml.writeCharacters(sanitize(book.annotation()));
+            xml.writeEndElement();
+        }
+        SeriesLink series = book.series();
+        if (series != null) {
+            String title = series.number() != null ? series.name() + " #" + series.number() : series.name();
+            link("related", "/opds/series/" + series.id(), ACQUISITION_TYPE, title);
+        }
+        if (book.cover() != null) {
+            link(IMAGE_REL, "/api/books/" + book.id() + "/cover?size=large", "image/jpeg", null);
+            link(THUMBNAIL_REL, "/api/books/" + book.id() + "/cover?size=thumbnail", "image/jpeg", null);
+        }
+        link(ACQUISITION_REL, "/api/books/" + book.id() + "/download", contentType, null);
+        xml.writeEndElement();
+    }
+
+    public void endFeed() throws XMLStreamException {
+        xml.writeEndElement();
+        xml.writeEndDocument();
+    }
+
+    /**
+     * Flushes the feed; the response stream itself stays open for the container.
+     */
+    @Override
+    public void close() throws XMLStreamException {
+        xml.flush();
+        xml.close();
+    }
+
+    private void link(String rel, String href, String type, String title) throws XMLStreamException {
+        xml.writeEmptyElement(ATOM_NS, "link");
+        xml.writeAttribute("rel", rel);
+        xml.writeAttribute("href", href.startsWith("/") ? contextPath + href : href);
+        xml.writeAttribute("type", type);
+        if (title != null) {
+            xml.writeAttribute("title", sanitize(title));
+        }
+    }
+
+    private void element(String name, String text) throws XMLStreamException {
+        xml.writeStartElement(ATOM_NS, name);
+        if (text != null) {
+            xml.writeCharacters(sanitize(text));
+        }
+        xml.writeEndElement();
+    }
+
+    private static String timestamp(LocalDateTime time) {
+        if (time == null) {
+            return "";
+        }
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                time.atZone(ZoneId.systemDefault()).toOffsetDateTime().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Drops characters XML 1.0 does not allow; FB2 metadata occasionally carries control characters.
+     */
+    static String sanitize(String text) {
+        if (text == null) {
+            return "";
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!isXmlChar(text.charAt(i))) {
+                StringBuilder sb = new StringBuilder(text.length());
+                for (int j = 0; j < text.length(); j++) {
+                    char c = text.charAt(j);
+                    if (isXmlChar(c)) {
+                        sb.append(c);
+                    }
+                }
+                return sb.toString();
+            }
+        }
+        return text;
+    }
+
+    private static boolean isXmlChar(char c) {
+        return c >= 0x20 ? c != 0xFFFE && c != 0xFFFF : c == '\t' || c == '\n' || c == '\r';
+    }
+}
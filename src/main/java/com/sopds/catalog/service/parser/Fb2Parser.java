@@ -5,13 +5,17 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.dom4j.Document;
-import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
 import org.springframework.stereotype.Component;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -20,6 +24,27 @@ import java.util.zip.ZipFile;
 @Component
 public class Fb2Parser {
 
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Configured once and shared: creating readers from a configured factory is thread-safe,
+     * building the factory itself is not cheap.
+     */
+    private final XMLInputFactory inputFactory = createInputFactory();
+
+    /**
+     * Receives the decoded cover image while it is parsed.
+     */
+    @FunctionalInterface
+    public interface CoverHandler {
+        /**
+         * @param image       decoded image bytes, valid only during the call
+         * @param contentType declared content type of the binary, may be null
+         * @return key of the stored cover, or null if it was not stored
+         */
+        String store(InputStream image, String contentType) throws IOException;
+    }
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -34,6 +59,14 @@ public class Fb2Parser {
         private String isbn;
         private String seriesName;
         private Integer seriesNumber;
+        /**
+         * Id of the {@code <binary>} referenced by {@code <coverpage>}
+         */
+        private String coverId;
+        /**
+         * Key of the cover returned by the {@link CoverHandler}, null if there is none
+         */
+        private String cover;
 
         @Data
         @Builder
@@ -62,124 +95,340 @@ public class Fb2Parser {
         }
     }
 
+    /**
+     * Parse FB2 header metadata with a streaming pull parser.
+     * <p>
+     * Only {@code <description>} is read: parsing stops as soon as it closes, so the body and
+     * the base64 {@code <binary>} images that make up most of a typical file are never read.
+     * The caller keeps ownership of the stream.
+     */
     public Fb2Metadata parse(InputStream inputStream) {
+        return parse(inputStream, null);
+    }
+
+    /**
+     * Parse the header and, with a cover handler, go on to the cover image in the same read.
+     * <p>
+     * The {@code <binary>} sections follow the body, so extracting the cover reads the whole
+     * file up to the cover; the base64 text is decoded as it streams in and handed to the
+     * handler without being collected in memory.
+     */
+    public Fb2Metadata parse(InputStream inputStream, CoverHandler coverHandler) {
+        XMLStreamReader reader = null;
         try {
-            SAXReader reader = new SAXReader();
-            reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            reader.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            reader.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-
-            Document document = reader.read(inputStream);
-            Element root = document.getRootElement();
-
-            // Get description element
-            Element description = root.element("description");
-            if (description == null) {
-                log.warn("No description element found in FB2 file");
-                return null;
+            InputStream in = inputStream instanceof BufferedInputStream
+                    ? inputStream : new BufferedInputStream(inputStream, BUFFER_SIZE);
+            reader = inputFactory.createXMLStreamReader(in);
+            Fb2Metadata metadata = readDescription(reader);
+            if (metadata != null && metadata.getCoverId() != null && coverHandler != null) {
+                readCover(reader, metadata, coverHandler);
             }
+            return metadata;
 
-            Element titleInfo = description.element("title-info");
-            if (titleInfo == null) {
-                log.warn("No title-info element found in FB2 file");
-                return null;
+        } catch (Exception e) {
+            log.error("Error parsing FB2 file", e);
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    log.debug("Failed to close XML reader", e);
+                }
             }
+        }
+    }
 
-            Fb2Metadata metadata = new Fb2Metadata();
-            metadata.setAuthors(new ArrayList<>());
-            metadata.setGenres(new ArrayList<>());
+    public Fb2Metadata parseFromZip(ZipFile zipFile, ZipEntry entry) {
+        try (InputStream is = zipFile.getInputStream(entry)) {
+            return parse(is);
+        } catch (Exception e) {
+            log.error("Error parsing FB2 from ZIP: {}", entry.getName(), e);
+            return null;
+        }
+    }
 
-            // Parse title
-            Element bookTitle = titleInfo.element("book-title");
-            if (bookTitle != null) {
-                metadata.setTitle(bookTitle.getTextTrim());
-            }
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
 
-            // Parse authors
-            List<Element> authorElements = titleInfo.elements("author");
-            for (Element author : authorElements) {
-                Fb2Metadata.AuthorInfo authorInfo = Fb2Metadata.AuthorInfo.builder()
-                        .firstName(getElementText(author, "first-name"))
-                        .middleName(getElementText(author, "middle-name"))
-                        .lastName(getElementText(author, "last-name"))
-                        .build();
-                metadata.getAuthors().add(authorInfo);
-            }
+    private Fb2Metadata readDescription(XMLStreamReader reader) throws XMLStreamException {
+        // Element names from the root down to the current element
+        List<String> path = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        StringBuilder annotation = null;
+        boolean annotationDone = false;
+        Fb2Metadata.AuthorInfo author = null;
+        boolean coverpage = false;
+        Fb2Metadata metadata = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                path.add(name);
+                int depth = path.size();
+
+                if (depth == 2 && ("body".equals(name) || "binary".equals(name))) {
+                    // <body> or <binary> before any <description>
+                    log.warn("No description element found in FB2 file");
+                    return null;
+                }
+                if (depth == 3 && "title-info".equals(name) && metadata == null) {
+                    metadata = new Fb2Metadata();
+                    metadata.setAuthors(new ArrayList<>());
+                    metadata.setGenres(new ArrayList<>());
+                }
+
+                if (annotation != null) {
+                    // Block elements inside the annotation (<p>, <empty-line/>...) become separators
+                    annotation.append(' ');
+                } else if (depth == 4 && inTitleInfo(path)) {
+                    if ("author".equals(name)) {
+                        author = new Fb2Metadata.AuthorInfo();
+                    } else if ("annotation".equals(name) && !annotationDone) {
+                        annotation = new StringBuilder();
+                    } else if ("coverpage".equals(name) && metadata.getCoverId() == null) {
+                        coverpage = true;
+                    } else if ("sequence".equals(name) && metadata.getSeriesName() == null) {
+                        metadata.setSeriesName(reader.getAttributeValue(null, "name"));
+                        metadata.setSeriesNumber(parseSeriesNumber(reader.getAttributeValue(null, "number")));
+                    }
+                }
+                if (coverpage && depth == 5 && "image".equals(name)) {
+                    metadata.setCoverId(localReference(reader));
+                    coverpage = false;
+                }
+                text.setLength(0);
+
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                if (annotation != null) {
+                    annotation.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                } else {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = path.get(path.size() - 1);
+                int depth = path.size();
+
+                if (depth == 2 && "description".equals(name)) {
+                    // Everything we need has been read
+                    break;
+                }
 
-            // Parse genres
-            List<Element> genreElements = titleInfo.elements("genre");
-            for (Element genre : genreElements) {
-                metadata.getGenres().add(genre.getTextTrim());
+                if (annotation != null) {
+                    if (depth == 4 && "annotation".equals(name)) {
+                        String value = normalize(annotation);
+                        metadata.setAnnotation(value.isEmpty() ? null : value);
+                        annotation = null;
+                        annotationDone = true;
+                    }
+                } else if (depth == 4 && inTitleInfo(path)) {
+                    switch (name) {
+                        case "book-title" -> {
+                            if (metadata.getTitle() == null) metadata.setTitle(normalize(text));
+                        }
+                        case "genre" -> metadata.getGenres().add(normalize(text));
+                        case "lang" -> {
+                            if (metadata.getLang() == null) metadata.setLang(normalize(text));
+                        }
+                        case "date" -> {
+                            if (metadata.getDate() == null) metadata.setDate(normalize(text));
+                        }
+                        case "author" -> {
+                            metadata.getAuthors().add(author);
+                            author = null;
+                        }
+                        case "coverpage" -> coverpage = false;
+                        default -> {
+                        }
+                    }
+                } else if (depth == 5 && author != null && "author".equals(path.get(3)) && inTitleInfo(path)) {
+                    switch (name) {
+                        case "first-name" -> author.setFirstName(normalize(text));
+                        case "middle-name" -> author.setMiddleName(normalize(text));
+                        case "last-name" -> author.setLastName(normalize(text));
+                        default -> {
+                        }
+                    }
+                } else if (depth == 4 && "isbn".equals(name) && "publish-info".equals(path.get(2))
+                        && metadata != null && metadata.getIsbn() == null) {
+                    metadata.setIsbn(sanitizeIsbn(normalize(text)));
+                }
+
+                path.remove(path.size() - 1);
+                text.setLength(0);
             }
+        }
 
-            // Parse annotation
-            Element annotation = titleInfo.element("annotation");
-            if (annotation != null) {
-                metadata.setAnnotation(annotation.asXML().replaceAll("<[^>]+>", " ").trim());
+        if (metadata == null) {
+            log.warn("No title-info element found in FB2 file");
+        }
+        return metadata;
+    }
+
+    /**
+     * Skips the body up to the {@code <binary>} of the cover and streams it to the handler.
+     * A cover that cannot be read or stored leaves the metadata without a cover.
+     */
+    private void readCover(XMLStreamReader reader, Fb2Metadata metadata, CoverHandler coverHandler) {
+        try {
+            // The reader is positioned on </description>, at depth 1
+            int depth = 1;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2 && "binary".equals(reader.getLocalName())
+                            && metadata.getCoverId().equals(reader.getAttributeValue(null, "id"))) {
+                        String contentType = reader.getAttributeValue(null, "content-type");
+                        try (InputStream image = Base64.getMimeDecoder().wrap(new ElementTextStream(reader))) {
+                            metadata.setCover(coverHandler.store(image, contentType));
+                        }
+                        return;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
             }
+            log.debug("Cover binary {} not found", metadata.getCoverId());
+        } catch (XMLStreamException | IOException | IllegalArgumentException e) {
+            log.debug("Failed to read cover {}", metadata.getCoverId(), e);
+        }
+    }
 
-            // Parse language
-            Element lang = titleInfo.element("lang");
-            if (lang != null) {
-                metadata.setLang(lang.getTextTrim());
+    /**
+     * The id of a local {@code href="#id"} reference of the current element; the attribute is
+     * in the XLink namespace under whatever prefix the file declares
+     */
+    private static String localReference(XMLStreamReader reader) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if ("href".equals(reader.getAttributeLocalName(i))) {
+                String href = reader.getAttributeValue(i).trim();
+                return href.startsWith("#") && href.length() > 1 ? href.substring(1) : null;
             }
+        }
+        return null;
+    }
+
+    /**
+     * The text content of the current element as ASCII bytes, read event by event. Characters
+     * outside ASCII are replaced with spaces, which the MIME base64 decoder skips like line breaks.
+     */
+    private static final class ElementTextStream extends InputStream {
+        private final XMLStreamReader reader;
+        private char[] chars;
+        private int position;
+        private int end;
+        private boolean finished;
 
-            // Parse date
-            Element date = titleInfo.element("date");
-            if (date != null) {
-                metadata.setDate(date.getTextTrim());
+        ElementTextStream(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == end && !fill()) {
+                return -1;
             }
+            return ascii(chars[position++]);
+        }
 
-            // Parse series info
-            Element sequence = titleInfo.element("sequence");
-            if (sequence != null) {
-                metadata.setSeriesName(sequence.attributeValue("name"));
-                String number = sequence.attributeValue("number");
-                if (number != null && !number.isEmpty()) {
-                    try {
-                        metadata.setSeriesNumber(Integer.parseInt(number));
-                    } catch (NumberFormatException e) {
-                        log.warn("Invalid series number: {}", number);
-                    }
-                }
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
             }
+            if (position == end && !fill()) {
+                return -1;
+            }
+            int count = Math.min(length, end - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) ascii(chars[position++]);
+            }
+            return count;
+        }
 
-            // Try to get ISBN from publish-info
-            Element publishInfo = description.element("publish-info");
-            if (publishInfo != null) {
-                Element isbn = publishInfo.element("isbn");
-                if (isbn != null) {
-                    String isbnValue = isbn.getTextTrim();
-                    // Sanitize ISBN - remove extra characters, limit length
-                    if (isbnValue != null && !isbnValue.isEmpty()) {
-                        isbnValue = isbnValue.replaceAll("[^0-9X-]", "");
-                        if (isbnValue.length() > 50) {
-                            isbnValue = isbnValue.substring(0, 50);
+        /**
+         * Moves to the next text event; the reader's character array stays valid until then
+         */
+        private boolean fill() throws IOException {
+            try {
+                while (!finished && reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                        chars = reader.getTextCharacters();
+                        position = reader.getTextStart();
+                        end = position + reader.getTextLength();
+                        if (position < end) {
+                            return true;
                         }
-                        metadata.setIsbn(isbnValue);
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        finished = true;
                     }
                 }
+                return false;
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
             }
+        }
 
-            return metadata;
+        private static int ascii(char c) {
+            return c < 0x80 ? c : ' ';
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error parsing FB2 file", e);
-            return null;
+    private static boolean inTitleInfo(List<String> path) {
+        return path.size() >= 3 && "description".equals(path.get(1)) && "title-info".equals(path.get(2));
+    }
+
+    private Integer parseSeriesNumber(String number) {
+        if (number != null && !number.isEmpty()) {
+            try {
+                return Integer.parseInt(number.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid series number: {}", number);
+            }
         }
+        return null;
     }
 
-    public Fb2Metadata parseFromZip(ZipFile zipFile, ZipEntry entry) {
-        try (InputStream is = zipFile.getInputStream(entry)) {
-            return parse(is);
-        } catch (Exception e) {
-            log.error("Error parsing FB2 from ZIP: {}", entry.getName(), e);
+    private static String sanitizeIsbn(String isbnValue) {
+        // Sanitize ISBN - remove extra characters, limit length
+        if (isbnValue == null || isbnValue.isEmpty()) {
             return null;
         }
+        isbnValue = isbnValue.replaceAll("[^0-9X-]", "");
+        if (isbnValue.length() > 50) {
+            isbnValue = isbnValue.substring(0, 50);
+        }
+        return isbnValue;
     }
 
-    private String getElementText(Element parent, String elementName) {
-        Element element = parent.element(elementName);
-        return element != null ? element.getTextTrim() : null;
+    /**
+     * Trim and collapse internal whitespace to single spaces.
+     */
+    private static String normalize(CharSequence value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package com.sopds.catalog.service.parser;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Parser for INPX collection indexes (lib.rus.ec / Flibusta style).
+ * <p>
+ * An INPX file is a ZIP archive with one {@code .inp} member per book archive
+ * ({@code fb2-000001-010000.inp} describes {@code fb2-000001-010000.zip}). Each line of an
+ * {@code .inp} member is one book, fields separated by {@code 0x04}, in the order given by the
+ * optional {@code structure.info} member.
+ */
+@Slf4j
+@Component
+public class InpxParser {
+
+    public static final List<String> DEFAULT_STRUCTURE = List.of(
+            "AUTHOR", "GENRE", "TITLE", "SERIES", "SERNO", "FILE", "SIZE", "LIBID",
+            "DEL", "EXT", "DATE", "LANG", "LIBRATE", "KEYWORDS");
+
+    private static final String STRUCTURE_INFO = "structure.info";
+    private static final char FIELD_SEPARATOR = '\u0004';
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InpRecord {
+        private List<Fb2Parser.Fb2Metadata.AuthorInfo> authors;
+        private List<String> genres;
+        private String title;
+        private String seriesName;
+        private Integer seriesNumber;
+        private String file;
+        private String ext;
+        private long size;
+        private String lang;
+        private String folder;
+        private boolean deleted;
+
+        public String getFilename() {
+            return ext == null || ext.isEmpty() ? file : file + "." + ext;
+        }
+    }
+
+    /**
+     * Field order of the collection, {@link #DEFAULT_STRUCTURE} if the index does not define one.
+     */
+    public List<String> readStructure(ZipFile inpx) throws IOException {
+        ZipEntry entry = inpx.getEntry(STRUCTURE_INFO);
+        if (entry == null) {
+            return DEFAULT_STRUCTURE;
+        }
+        try (InputStream is = inpx.getInputStream(entry)) {
+            String value = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            List<String> structure = new ArrayList<>();
+            for (String field : value.split(";")) {
+                if (!field.isBlank()) {
+                    structure.add(field.trim().toUpperCase(Locale.ROOT));
+                }
+            }
+            return structure.isEmpty() ? DEFAULT_STRUCTURE : structure;
+        }
+    }
+
+    /**
+     * Stream the records of one {@code .inp} member. The caller keeps ownership of the stream.
+     */
+    public void parse(InputStream inputStream, List<String> structure, Consumer<InpRecord> consumer)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            InpRecord record = parseLine(line, structure);
+            if (record != null) {
+                consumer.accept(record);
+            }
+        }
+    }
+
+    InpRecord parseLine(String line, List<String> structure) {
+        Map<String, String> fields = new HashMap<>(structure.size() * 2);
+        int start = 0;
+        for (String name : structure) {
+            if (start > line.length()) {
+                break;
+            }
+            int end = line.indexOf(FIELD_SEPARATOR, start);
+            if (end < 0) {
+                end = line.length();
+            }
+            fields.put(name, line.substring(start, end).trim());
+            start = end + 1;
+        }
+
+        String file = fields.get("FILE");
+        if (file == null || file.isEmpty()) {
+            log.debug("Skipping INP record without FILE: {}", line);
+            return null;
+        }
+
+        return InpRecord.builder()
+                .authors(parseAuthors(fields.get("AUTHOR")))
+                .genres(splitList(fields.get("GENRE")))
+                .title(emptyToNull(fields.get("TITLE")))
+                .seriesName(emptyToNull(fields.get("SERIES")))
+                .seriesNumber(parseInteger(fields.get("SERNO")))
+                .file(file)
+                .ext(fields.getOrDefault("EXT", "").toLowerCase(Locale.ROOT))
+                .size(parseLong(fields.get("SIZE")))
+                .lang(emptyToNull(fields.get("LANG")))
+                .folder(emptyToNull(fields.get("FOLDER")))
+                .deleted("1".equals(fields.get("DEL")))
+                .build();
+    }
+
+    /**
+     * "Last,First,Middle:Last2,First2,:" -> author list
+     */
+    private List<Fb2Parser.Fb2Metadata.AuthorInfo> parseAuthors(String value) {
+        List<Fb2Parser.Fb2Metadata.AuthorInfo> authors = new ArrayList<>();
+        for (String author : splitList(value)) {
+            String[] parts = author.split(",", -1);
+            authors.add(Fb2Parser.Fb2Metadata.AuthorInfo.builder()
+                    .lastName(part(parts, 0))
+                    .firstName(part(parts, 1))
+                    .middleName(part(parts, 2))
+                    .build());
+        }
+        return authors;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        if (value != null) {
+            for (String item : value.split(":")) {
+                if (!item.isBlank()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return items;
+    }
+
+    private static String part(String[] parts, int index) {
+        return index < parts.length ? emptyToNull(parts[index].trim()) : null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static Integer parseInteger(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
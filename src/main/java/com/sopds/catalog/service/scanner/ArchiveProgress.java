@@ -0,0 +1,18 @@
+package com.sopds.catalog.service.scanner;
+
+import lombok.Value;
+
+/**
+ * Position inside a large archive: all central directory entries before {@code position}
+ * have been handed to the writer.
+ */
+@Value
+public class ArchiveProgress implements ScanResult {
+
+    /**
+     * Archive path relative to the library root
+     */
+    String path;
+
+    int position;
+}
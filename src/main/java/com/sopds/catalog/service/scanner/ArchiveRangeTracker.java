@@ -0,0 +1,69 @@
+package com.sopds.catalog.service.scanner;
+
+import java.util.function.Consumer;
+
+/**
+ * Completion of the entry ranges of one archive that is processed by several workers.
+ * <p>
+ * Ranges may finish out of order; a resume checkpoint may only cover a contiguous prefix of
+ * entries, so {@link ArchiveProgress} is emitted when that prefix has grown by at least one
+ * checkpoint interval. It is emitted by the worker that completed the prefix, after all books
+ * of the prefix were handed to the sink, which keeps it behind them in the result queue.
+ */
+public class ArchiveRangeTracker {
+
+    private final String archivePath;
+    private final int firstEntry;
+    private final int rangeSize;
+    private final int lastEntry;
+    private final int checkpointEntries;
+    private final boolean[] completed;
+    private final Consumer<ScanResult> sink;
+
+    private int completedPrefix;
+    private int lastCheckpoint;
+
+    /**
+     * @param firstEntry index of the first entry of the first range
+     * @param lastEntry  index after the last entry of the last range
+     */
+    public ArchiveRangeTracker(String archivePath, int firstEntry, int lastEntry, int rangeSize,
+                               int checkpointEntries, Consumer<ScanResult> sink) {
+        this.archivePath = archivePath;
+        this.firstEntry = firstEntry;
+        this.lastEntry = lastEntry;
+        this.rangeSize = rangeSize;
+        this.checkpointEntries = checkpointEntries;
+        this.completed = new boolean[getRangeCount()];
+        this.sink = sink;
+        this.lastCheckpoint = firstEntry;
+    }
+
+    public int getRangeCount() {
+        return (lastEntry - firstEntry + rangeSize - 1) / rangeSize;
+    }
+
+    public int rangeStart(int range) {
+        return firstEntry + range * rangeSize;
+    }
+
+    public int rangeEnd(int range) {
+        return Math.min(lastEntry, rangeStart(range) + rangeSize);
+    }
+
+    public synchronized void completed(int range) {
+        completed[range] = true;
+        while (completedPrefix < completed.length && completed[completedPrefix]) {
+            completedPrefix++;
+        }
+        int position = completedPrefix < completed.length ? rangeStart(completedPrefix) : lastEntry;
+        if (position < lastEntry && position - lastCheckpoint >= checkpointEntries) {
+            sink.accept(new ArchiveProgress(archivePath, position));
+            lastCheckpoint = position;
+        }
+    }
+
+    public synchronized boolean isComplete() {
+        return completedPrefix == completed.length;
+    }
+}
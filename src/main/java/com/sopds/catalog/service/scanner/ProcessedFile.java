@@ -0,0 +1,15 @@
+package com.sopds.catalog.service.scanner;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Emitted by the pipeline after the parse stage is done with a discovered file, behind all of
+ * that file's results. Once the writer has committed it, everything the file produced is stored.
+ */
+@Value
+public class ProcessedFile implements ScanResult {
+
+    Path file;
+}
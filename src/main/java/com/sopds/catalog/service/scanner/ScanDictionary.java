@@ -0,0 +1,135 @@
+package com.sopds.catalog.service.scanner;
+
+import com.sopds.catalog.entity.Genre;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Scan-scoped interning dictionary: maps author names, series names and genre codes to ids,
+ * so each distinct value costs at most one database round trip per scan.
+ * <p>
+ * Genres are preloaded. Authors and series are added as they are found or created. The
+ * dictionary is owned by the single writer thread that resolves the books of each chunk, so it
+ * is not thread-safe. Ids created since the last {@link #commit()} are forgotten on
+ * {@link #rollback()}, so a rolled back chunk cannot leave dangling ids behind.
+ */
+@Slf4j
+public class ScanDictionary {
+
+    private final Map<String, Long> genres = new HashMap<>();
+    private long genreLookups;
+    private long genreMisses;
+
+    private final Dictionary authors = new Dictionary("authors");
+    private final Dictionary series = new Dictionary("series");
+
+    public ScanDictionary(List<Genre> allGenres) {
+        for (Genre genre : allGenres) {
+            genres.put(genre.getCode(), genre.getId());
+        }
+    }
+
+    /**
+     * @return genre id, or null if the code is unknown
+     */
+    public Long genre(String code) {
+        genreLookups++;
+        Long id = genres.get(code);
+        if (id == null) {
+            genreMisses++;
+        }
+        return id;
+    }
+
+    /**
+     * @param finder  looks the author up in the database
+     * @param creator creates the author when the finder returns nothing
+     */
+    public Long author(String fullName, Function<String, Optional<Long>> finder, Function<String, Long> creator) {
+        return authors.resolve(fullName, finder, creator);
+    }
+
+    public Long series(String name, Function<String, Optional<Long>> finder, Function<String, Long> creator) {
+        return series.resolve(name, finder, creator);
+    }
+
+    /**
+     * The chunk that created the pending entries was committed.
+     */
+    public void commit() {
+        authors.commit();
+        series.commit();
+    }
+
+    /**
+     * The chunk that created the pending entries was rolled back: their ids no longer exist.
+     */
+    public void rollback() {
+        authors.rollback();
+        series.rollback();
+    }
+
+    public void logStatistics() {
+        log.info("Dictionary genres: {} entries, {} hits, {} unknown codes",
+                genres.size(), genreLookups - genreMisses, genreMisses);
+        authors.logStatistics();
+        series.logStatistics();
+    }
+
+    private static class Dictionary {
+        private final String name;
+        private final Map<String, Long> ids = new HashMap<>();
+        /**
+         * Keys created in the current chunk, dropped again if it rolls back
+         */
+        private final Set<String> pending = new HashSet<>();
+        private long lookups;
+        private long misses;
+
+        Dictionary(String name) {
+            this.name = name;
+        }
+
+        Long resolve(String key, Function<String, Optional<Long>> finder, Function<String, Long> creator) {
+            lookups++;
+            Long id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            misses++;
+            // The queries run outside any map operation; a failing creator leaves the map untouched
+            Optional<Long> found = finder.apply(key);
+            if (found.isPresent()) {
+                id = found.get();
+            } else {
+                id = creator.apply(key);
+                pending.add(key);
+            }
+            ids.put(key, id);
+            return id;
+        }
+
+        void commit() {
+            pending.clear();
+        }
+
+        void rollback() {
+            for (String key : pending) {
+                ids.remove(key);
+            }
+            pending.clear();
+        }
+
+        void logStatistics() {
+            log.info("Dictionary {}: {} entries, {} hits, {} misses",
+                    name, ids.size(), lookups - misses, misses);
+        }
+    }
+}
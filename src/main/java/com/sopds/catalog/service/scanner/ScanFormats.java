@@ -0,0 +1,57 @@
+package com.sopds.catalog.service.scanner;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * File name and metadata value helpers on the scanner's per-book path.
+ */
+public final class ScanFormats {
+
+    /**
+     * Full date formats found in FB2 {@code <date>} elements, tried in order. Formatters are
+     * immutable and thread-safe, so they are built once instead of once per book.
+     */
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+    private ScanFormats() {
+    }
+
+    /**
+     * @return lower-case extension without the dot, empty if there is none
+     */
+    public static String getFileExtension(String filename) {
+        int lastDot = filename.lastIndexOf('.');
+        if (lastDot > 0 && lastDot < filename.length() - 1) {
+            return filename.substring(lastDot + 1).toLowerCase();
+        }
+        return "";
+    }
+
+    /**
+     * Parses "yyyy-MM-dd", a bare year, "dd.MM.yyyy" or "dd/MM/yyyy".
+     *
+     * @return null if the value matches none of them
+     */
+    public static LocalDate parseDate(String value) {
+        if (value.length() == 4) {
+            try {
+                return LocalDate.of(Integer.parseInt(value), 1, 1);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.sopds.catalog.service.scanner;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-scan journal: knows what a resumed run already finished and records new checkpoints.
+ * <p>
+ * A directory is complete once discovery has left it and every file submitted from it, and
+ * every subdirectory, is committed. Completion is detected from the {@link ProcessedFile}
+ * markers the writer commits, so a checkpoint is only written after the data it covers.
+ */
+@Slf4j
+public class ScanJournal {
+
+    /**
+     * Persistence of checkpoints, implemented by the journal service.
+     */
+    public interface Checkpoints {
+        void directoryCompleted(long runId, String path);
+
+        void archiveProgress(long runId, String path, Integer position, boolean completed);
+    }
+
+    @Getter
+    private final long runId;
+    @Getter
+    private final boolean resumed;
+    private final Path root;
+    private final long startedMillis;
+    private final Checkpoints checkpoints;
+
+    private final Set<String> completedDirectories;
+    private final Set<String> completedArchives;
+    private final Map<String, Integer> archivePositions;
+
+    private final Map<Path, DirectoryNode> directories = new ConcurrentHashMap<>();
+
+    /**
+     * @param startedMillis start of the run; archives modified after it are read from the beginning
+     */
+    public ScanJournal(long runId, boolean resumed, Path root, long startedMillis, Checkpoints checkpoints,
+                       Set<String> completedDirectories, Set<String> completedArchives,
+                       Map<String, Integer> archivePositions) {
+        this.runId = runId;
+        this.resumed = resumed;
+        this.root = root;
+        this.startedMillis = startedMillis;
+        this.checkpoints = checkpoints;
+        this.completedDirectories = completedDirectories;
+        this.completedArchives = completedArchives;
+        this.archivePositions = archivePositions;
+    }
+
+    /**
+     * Journal that resumes nothing and records nothing, for scans outside a journaled run.
+     */
+    public static ScanJournal disabled(Path root) {
+        return new ScanJournal(0, false, root, 0, null, Set.of(), Set.of(), Map.of());
+    }
+
+    public boolean isDirectoryCompleted(Path dir) {
+        return completedDirectories.contains(relativize(dir));
+    }
+
+    public boolean isArchiveCompleted(String path) {
+        return completedArchives.contains(path);
+    }
+
+    /**
+     * Number of leading central directory entries of the archive that are already stored.
+     * An archive rewritten since the run started may have a different entry order, so it starts over.
+     */
+    public int archivePosition(String path, long lastModified) {
+        if (lastModified >= startedMillis) {
+            return 0;
+        }
+        return archivePositions.getOrDefault(path, 0);
+    }
+
+    // Discovery side
+
+    public void directoryStarted(Path dir) {
+        DirectoryNode parent = directories.get(dir.getParent());
+        if (parent != null) {
+            parent.pending.incrementAndGet();
+        }
+        directories.put(dir, new DirectoryNode(dir, parent));
+    }
+
+    /**
+     * Must be called before the file is handed to the pipeline, so it is counted before it can complete.
+     */
+    public void fileSubmitted(Path file) {
+        DirectoryNode node = directories.get(file.getParent());
+        if (node != null) {
+            node.pending.incrementAndGet();
+        }
+    }
+
+    public void directoryFinished(Path dir) {
+        DirectoryNode node = directories.get(dir);
+        if (node != null) {
+            release(node);
+        }
+    }
+
+    // Writer side
+
+    /**
+     * Called by the writer after a batch has been committed.
+     */
+    public void committed(List<ScanResult> batch) {
+        if (checkpoints == null) {
+            return;
+        }
+        for (ScanResult result : batch) {
+            if (result instanceof ProcessedFile processed) {
+                DirectoryNode node = directories.get(processed.getFile().getParent());
+                if (node != null) {
+                    release(node);
+                }
+            } else if (result instanceof ArchiveProgress progress) {
+                checkpoints.archiveProgress(runId, progress.getPath(), progress.getPosition(), false);
+            } else if (result instanceof ScannedFile file && file.getEntryCount() != null) {
+                checkpoints.archiveProgress(runId, file.getPath(), null, true);
+            }
+        }
+    }
+
+    private void release(DirectoryNode node) {
+        while (node != null && node.pending.decrementAndGet() == 0) {
+            directories.remove(node.dir);
+            if (checkpoints != null) {
+                checkpoints.directoryCompleted(runId, relativize(node.dir));
+            }
+            node = node.parent;
+        }
+    }
+
+    private String relativize(Path dir) {
+        return root.relativize(dir).toString();
+    }
+
+    private static class DirectoryNode {
+        private final Path dir;
+        private final DirectoryNode parent;
+        /**
+         * Submitted files and open subdirectories, plus one while discovery is inside the directory
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        DirectoryNode(Path dir, DirectoryNode parent) {
+            this.dir = dir;
+            this.parent = parent;
+        }
+    }
+}
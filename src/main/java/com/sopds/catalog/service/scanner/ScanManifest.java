@@ -0,0 +1,61 @@
+package com.sopds.catalog.service.scanner;
+
+import com.sopds.catalog.entity.ScanManifestEntry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory snapshot of the scan manifest, loaded once at scan start so that unchanged
+ * files and archives are recognised without any per-file SQL.
+ * <p>
+ * The snapshot is read-only during a scan and therefore safe to share between stages.
+ */
+public class ScanManifest {
+
+    private final Map<String, ScanManifestEntry> entries;
+
+    public ScanManifest(List<ScanManifestEntry> entries) {
+        this.entries = new HashMap<>(Math.max(16, entries.size() * 4 / 3 + 1));
+        for (ScanManifestEntry entry : entries) {
+            this.entries.put(entry.getPath(), entry);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    /**
+     * A file or archive is unchanged when both its size and modification time match.
+     */
+    public boolean isUnchanged(String path, long fileSize, long lastModified) {
+        ScanManifestEntry entry = entries.get(path);
+        return entry != null
+                && entry.getFileSize() == fileSize
+                && entry.getLastModified() == lastModified;
+    }
+
+    /**
+     * INPX indexes are compared by size only, as SOPDS does ("inpx skip unchanged").
+     */
+    public boolean isUnchangedSize(String path, long fileSize) {
+        ScanManifestEntry entry = entries.get(path);
+        return entry != null && entry.getFileSize() == fileSize;
+    }
+
+    /**
+     * An archive whose timestamp changed is still unchanged if its central directory is identical.
+     */
+    public boolean isUnchangedArchive(String path, int entryCount, long entryCrc) {
+        ScanManifestEntry entry = entries.get(path);
+        return entry != null
+                && entry.getEntryCount() != null && entry.getEntryCount() == entryCount
+                && entry.getEntryCrc() != null && entry.getEntryCrc() == entryCrc;
+    }
+}
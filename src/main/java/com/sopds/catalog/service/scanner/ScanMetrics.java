@@ -0,0 +1,201 @@
+package com.sopds.catalog.service.scanner;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Micrometer instrumentation of the library scanner plus the live progress of the running scan.
+ * <p>
+ * Every stage reports to the {@code sopds.scan.stage} timer tagged with its name, published as a
+ * histogram so slow percentiles of one stage can be told apart from a slow scan overall.
+ */
+@Component
+public class ScanMetrics {
+
+    public enum Stage {
+        /**
+         * Walking the tree and checking files against the manifest
+         */
+        DISCOVERY("discovery"),
+        /**
+         * Opening an archive and reading its central directory
+         */
+        ZIP_OPEN("zip-open"),
+        /**
+         * Parsing the FB2 description of one book
+         */
+        PARSE("parse"),
+        /**
+         * Resolving authors, genres and series of one book
+         */
+        RESOLVE("resolve"),
+        /**
+         * Committing one writer batch
+         */
+        WRITE("write");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final Counter bytesCounter;
+    private final Counter booksCounter;
+
+    private final AtomicLong startedNanos = new AtomicLong();
+    private final AtomicLong finishedNanos = new AtomicLong();
+    private final AtomicLong discoveredFiles = new AtomicLong();
+    private final AtomicLong discoveredBytes = new AtomicLong();
+    private final AtomicLong parsedFiles = new AtomicLong();
+    private final AtomicLong parsedBytes = new AtomicLong();
+    private final AtomicLong writtenBooks = new AtomicLong();
+    private final AtomicReference<Path> currentFile = new AtomicReference<>();
+    private volatile boolean discoveryComplete;
+
+    public ScanMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("sopds.scan.stage")
+                    .description("Time spent in one scan pipeline stage per item")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        bytesCounter = Counter.builder("sopds.scan.bytes")
+                .description("Bytes of books and archives read by the scanner")
+                .baseUnit("bytes")
+                .register(registry);
+        booksCounter = Counter.builder("sopds.scan.books")
+                .description("Books added or updated by the scanner")
+                .register(registry);
+        Gauge.builder("sopds.scan.bytes.rate", this, ScanMetrics::getBytesPerSecond)
+                .description("Bytes per second read by the running or last scan")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("sopds.scan.books.rate", this, ScanMetrics::getBooksPerSecond)
+                .description("Books per second written by the running or last scan")
+                .register(registry);
+    }
+
+    public void scanStarted() {
+        startedNanos.set(System.nanoTime());
+        finishedNanos.set(0);
+        discoveredFiles.set(0);
+        discoveredBytes.set(0);
+        parsedFiles.set(0);
+        parsedBytes.set(0);
+        writtenBooks.set(0);
+        currentFile.set(null);
+        discoveryComplete = false;
+    }
+
+    public void discoveryFinished() {
+        discoveryComplete = true;
+    }
+
+    public void scanFinished() {
+        finishedNanos.set(System.nanoTime());
+        currentFile.set(null);
+    }
+
+    public void fileDiscovered(long bytes) {
+        discoveredFiles.incrementAndGet();
+        discoveredBytes.addAndGet(bytes);
+    }
+
+    public void fileStarted(Path file) {
+        currentFile.set(file);
+    }
+
+    public void fileParsed(long bytes) {
+        parsedFiles.incrementAndGet();
+        parsedBytes.addAndGet(bytes);
+        bytesCounter.increment(bytes);
+    }
+
+    public void booksWritten(int books) {
+        writtenBooks.addAndGet(books);
+        booksCounter.increment(books);
+    }
+
+    /**
+     * @param startNanos value of {@link System#nanoTime()} when the stage started
+     */
+    public void record(Stage stage, long startNanos) {
+        timers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Path getCurrentFile() {
+        return currentFile.get();
+    }
+
+    public boolean isDiscoveryComplete() {
+        return discoveryComplete;
+    }
+
+    public long getDiscoveredFiles() {
+        return discoveredFiles.get();
+    }
+
+    public long getDiscoveredBytes() {
+        return discoveredBytes.get();
+    }
+
+    public long getParsedFiles() {
+        return parsedFiles.get();
+    }
+
+    public long getParsedBytes() {
+        return parsedBytes.get();
+    }
+
+    public long getWrittenBooks() {
+        return writtenBooks.get();
+    }
+
+    public double getElapsedSeconds() {
+        long started = startedNanos.get();
+        if (started == 0) {
+            return 0;
+        }
+        long finished = finishedNanos.get();
+        return ((finished != 0 ? finished : System.nanoTime()) - started) / 1e9;
+    }
+
+    public double getBytesPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed > 0 ? parsedBytes.get() / elapsed : 0;
+    }
+
+    public double getBooksPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed > 0 ? writtenBooks.get() / elapsed : 0;
+    }
+
+    /**
+     * Seconds until the files discovered so far are parsed, at the current byte rate.
+     * While discovery is still running this is a lower bound.
+     *
+     * @return null before the rate is known
+     */
+    public Long getEtaSeconds() {
+        double rate = getBytesPerSecond();
+        if (rate <= 0) {
+            return null;
+        }
+        long remaining = Math.max(0, discoveredBytes.get() - parsedBytes.get());
+        return Math.round(remaining / rate);
+    }
+}
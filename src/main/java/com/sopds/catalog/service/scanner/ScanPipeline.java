@@ -0,0 +1,308 @@
+package com.sopds.catalog.service.scanner;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Staged scan pipeline: discovery (caller thread) -> bounded file queue -> parse workers
+ * -> bounded result queue -> single batching writer.
+ * <p>
+ * Both queues are bounded, so a slow writer throttles the parsers and slow parsers throttle
+ * discovery. {@link #abort()} stops discovery and parsing at once: results already in the result
+ * queue are still written before {@link #finish()} returns, while whatever a parse worker produces
+ * after the abort, including the completion marker of its file, is dropped. A partly written file
+ * therefore stays incomplete in the manifest and journal and is read again by the next scan.
+ * <p>
+ * Parse workers that split one archive into parallel tasks (entry ranges of a large ZIP, archive
+ * checks of an INPX index) run them on the shared {@link #getArchiveExecutor() archive executor},
+ * so the threads and open archives of a scan stay bounded however many archives are parsed at once.
+ */
+@Slf4j
+public class ScanPipeline {
+
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private static final Path END_OF_FILES = Path.of("");
+    private static final ScanResult END_OF_RESULTS = new ScanResult() {
+    };
+
+    @FunctionalInterface
+    public interface ParseStage {
+        void process(Path file, Consumer<ScanResult> sink) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface WriteStage {
+        void write(List<ScanResult> batch);
+    }
+
+    private final int workers;
+    private final int batchSize;
+    private final long batchTimeoutNanos;
+    private final ParseStage parseStage;
+    private final WriteStage writeStage;
+
+    private final BlockingQueue<Path> fileQueue;
+    private final BlockingQueue<ScanResult> resultQueue;
+    private final ExecutorService parseExecutor;
+    @Getter
+    private final ExecutorService archiveExecutor;
+    private final Thread writerThread;
+
+    private final AtomicBoolean aborted = new AtomicBoolean(false);
+    private final long startNanos = System.nanoTime();
+
+    @Getter
+    private final StageCounter discovered = new StageCounter("discovery");
+    @Getter
+    private final StageCounter parsed = new StageCounter("parse");
+    @Getter
+    private final StageCounter written = new StageCounter("write");
+
+    /**
+     * @param archiveWorkers threads of the archive executor shared by all parse workers
+     * @param batchSize      results per writer batch
+     * @param batchTimeout   a started batch is handed to the writer after this long even if it is not full
+     */
+    public ScanPipeline(int workers, int archiveWorkers, int queueCapacity, int batchSize, Duration batchTimeout,
+                        ParseStage parseStage, WriteStage writeStage) {
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.batchTimeoutNanos = batchTimeout.toNanos();
+        this.parseStage = parseStage;
+        this.writeStage = writeStage;
+        this.fileQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.resultQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.parseExecutor = Executors.newFixedThreadPool(this.workers, namedThreadFactory("scan-parse-"));
+        this.archiveExecutor = Executors.newFixedThreadPool(Math.max(1, archiveWorkers),
+                namedThreadFactory("scan-archive-"));
+        this.writerThread = namedThreadFactory("scan-writer-").newThread(this::runWriter);
+    }
+
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            parseExecutor.execute(this::runParser);
+        }
+        writerThread.start();
+    }
+
+    /**
+     * Hands a discovered file to the parse workers, blocking while the queue is full.
+     *
+     * @return false if the scan was aborted and discovery should stop
+     */
+    public boolean submit(Path file) {
+        if (!offer(fileQueue, file)) {
+            return false;
+        }
+        discovered.increment();
+        return true;
+    }
+
+    /**
+     * Signals the end of discovery and waits until every stage has drained.
+     */
+    public void finish() {
+        try {
+            if (!aborted.get()) {
+                for (int i = 0; i < workers; i++) {
+                    offer(fileQueue, END_OF_FILES);
+                }
+                parseExecutor.shutdown();
+            }
+            while (!parseExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                log.trace("Waiting for parse workers: {} files queued", fileQueue.size());
+            }
+            // Parse workers wait for their archive tasks, so none is left once they are done
+            archiveExecutor.shutdownNow();
+            resultQueue.put(END_OF_RESULTS);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            writerThread.interrupt();
+        }
+    }
+
+    /**
+     * Stops discovery and parsing. Only results already in the result queue are still written.
+     */
+    public void abort() {
+        if (aborted.compareAndSet(false, true)) {
+            log.warn("Aborting scan pipeline: {} files still queued", fileQueue.size());
+            fileQueue.clear();
+            parseExecutor.shutdownNow();
+            archiveExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isAborted() {
+        return aborted.get();
+    }
+
+    public int getFileQueueDepth() {
+        return fileQueue.size();
+    }
+
+    public int getResultQueueDepth() {
+        return resultQueue.size();
+    }
+
+    public void logThroughput() {
+        double elapsed = Math.max(1, System.nanoTime() - startNanos) / 1e9;
+        for (StageCounter counter : List.of(discovered, parsed, written)) {
+            log.info("Stage {}: {} items, {} items/s, busy {} s",
+                    counter.getName(), counter.getCount(),
+                    String.format("%.1f", counter.getCount() / elapsed),
+                    String.format("%.1f", counter.getBusyNanos() / 1e9));
+        }
+    }
+
+    private void runParser() {
+        try {
+            while (true) {
+                Path file = fileQueue.take();
+                if (file == END_OF_FILES || aborted.get()) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    parseStage.process(file, result -> {
+                        if (offer(resultQueue, result)) {
+                            parsed.increment();
+                        }
+                    });
+                } catch (Exception e) {
+                    log.error("Error processing file: {}", file, e);
+                }
+                parsed.addBusyNanos(System.nanoTime() - start);
+                if (!Thread.currentThread().isInterrupted()) {
+                    // Follows every result of the file, so its commit means the whole file is stored
+                    offer(resultQueue, new ProcessedFile(file));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<ScanResult> batch = new ArrayList<>(batchSize);
+        boolean done = false;
+        while (!done) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                resultQueue.drainTo(batch);
+                done = true;
+            }
+            if (batch.remove(END_OF_RESULTS)) {
+                done = true;
+            }
+            if (!batch.isEmpty()) {
+                long start = System.nanoTime();
+                try {
+                    writeStage.write(batch);
+                } catch (Exception e) {
+                    log.error("Error writing batch of {} results", batch.size(), e);
+                }
+                written.add(batch.size());
+                written.addBusyNanos(System.nanoTime() - start);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Collects results until the batch is full, the batch timeout expires or the end marker arrives.
+     */
+    private void fillBatch(List<ScanResult> batch) throws InterruptedException {
+        batch.add(resultQueue.take());
+        long deadline = System.nanoTime() + batchTimeoutNanos;
+        while (batch.size() < batchSize && !batch.contains(END_OF_RESULTS)) {
+            long remaining = deadline - System.nanoTime();
+            ScanResult next = remaining > 0 ? resultQueue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            resultQueue.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    /**
+     * Blocking put that gives up once the pipeline is aborted, so no stage can hang
+     * on a queue whose consumer has already stopped.
+     */
+    private <T> boolean offer(BlockingQueue<T> queue, T item) {
+        try {
+            while (!aborted.get()) {
+                if (queue.offer(item, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Item and busy-time counters of a single pipeline stage.
+     */
+    public static class StageCounter {
+        @Getter
+        private final String name;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        StageCounter(String name) {
+            this.name = name;
+        }
+
+        void increment() {
+            count.incrementAndGet();
+        }
+
+        void add(long items) {
+            count.addAndGet(items);
+        }
+
+        void addBusyNanos(long nanos) {
+            busyNanos.addAndGet(nanos);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.sopds.catalog.service.scanner;
+
+/**
+ * Item produced by the parse stage and consumed, in order per file, by the writer stage.
+ *
+ * @see ScannedBook
+ * @see ScannedFile
+ */
+public interface ScanResult {
+}
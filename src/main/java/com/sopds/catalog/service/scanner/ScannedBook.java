@@ -0,0 +1,54 @@
+package com.sopds.catalog.service.scanner;
+
+import com.sopds.catalog.service.parser.Fb2Parser;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of the parse stage: everything the writer stage needs to persist a book
+ * without touching the file again.
+ */
+@Value
+@Builder
+public class ScannedBook implements ScanResult {
+
+    /**
+     * Path relative to the library root (for ZIP entries: archive path + "/" + entry name)
+     */
+    String path;
+
+    /**
+     * Path of the discovered file the book was read from, relative to the library root: the book
+     * file itself, its ZIP archive or its INPX index
+     */
+    String source;
+
+    String filename;
+
+    /**
+     * Lower-case file extension
+     */
+    String format;
+
+    /**
+     * File size in MB
+     */
+    BigDecimal filesize;
+
+    /**
+     * Parsed FB2 metadata, null for formats without metadata or when parsing failed
+     */
+    Fb2Parser.Fb2Metadata metadata;
+
+    /**
+     * Hex MD5 of the file or archive entry content, null if hashing is disabled or the content was not read
+     */
+    String md5;
+
+    /**
+     * The file changed since the last scan and its existing book is updated instead of added
+     */
+    boolean update;
+}
@@ -0,0 +1,35 @@
+package com.sopds.catalog.service.scanner;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Completion record of a loose file or a whole ZIP archive. It follows the file's books
+ * through the writer, so the manifest never marks a file as scanned before its books are stored.
+ */
+@Value
+@Builder
+public class ScannedFile implements ScanResult {
+
+    /**
+     * Path relative to the library root
+     */
+    String path;
+
+    long fileSize;
+
+    /**
+     * Last modification time in epoch milliseconds
+     */
+    long lastModified;
+
+    /**
+     * Number of entries in the central directory, archives only
+     */
+    Integer entryCount;
+
+    /**
+     * CRC32 over entry names, CRCs and sizes from the central directory, archives only
+     */
+    Long entryCrc;
+}
@@ -0,0 +1,4 @@
+-- Keyset pagination of books by title: pages continue after a (title_sort, id) pair
+UPDATE books SET title_sort = title WHERE title_sort IS NULL;
+
+CREATE INDEX idx_book_title_sort_id ON books(title_sort, id);
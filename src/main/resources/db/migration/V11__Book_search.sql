@@ -0,0 +1,27 @@
+-- Ranked full-text search over title, authors, series and annotation,
+-- plus trigram indexes for typo-tolerant title and author matching
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE books ADD COLUMN search_vector tsvector;
+
+-- Weighted search document of one book: title A, authors B, series C, annotation D.
+-- The russian configuration stems Cyrillic words and passes Latin words to the English stemmer.
+-- The scanner refreshes the vectors of every batch it writes with this function.
+CREATE OR REPLACE FUNCTION book_search_vector(p_book_id BIGINT) RETURNS tsvector
+LANGUAGE sql STABLE AS $$
+    SELECT setweight(to_tsvector('russian', coalesce(b.title, '')), 'A')
+        || setweight(to_tsvector('russian', coalesce((
+               SELECT string_agg(a.full_name, ' ')
+               FROM book_authors ba JOIN authors a ON a.id = ba.author_id
+               WHERE ba.book_id = b.id), '')), 'B')
+        || setweight(to_tsvector('russian', coalesce(s.name, '')), 'C')
+        || setweight(to_tsvector('russian', coalesce(b.annotation, '')), 'D')
+    FROM books b LEFT JOIN series s ON s.id = b.series_id
+    WHERE b.id = p_book_id
+$$;
+
+UPDATE books SET search_vector = book_search_vector(id);
+
+CREATE INDEX idx_book_search ON books USING gin (search_vector);
+CREATE INDEX idx_book_title_trgm ON books USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX idx_author_name_trgm ON authors USING gin (lower(full_name) gin_trgm_ops);
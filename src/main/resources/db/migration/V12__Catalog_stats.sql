@@ -0,0 +1,20 @@
+-- Catalog counters for the main page: a single row kept current by the scanner and
+-- periodically reconciled against exact counts
+CREATE TABLE catalog_stats (
+    id INTEGER PRIMARY KEY,
+    books BIGINT NOT NULL DEFAULT 0,
+    authors BIGINT NOT NULL DEFAULT 0,
+    genres BIGINT NOT NULL DEFAULT 0,
+    series BIGINT NOT NULL DEFAULT 0,
+    last_scan TIMESTAMP,
+    reconciled_at TIMESTAMP
+);
+
+INSERT INTO catalog_stats (id, books, authors, genres, series, last_scan, reconciled_at)
+SELECT 1,
+       (SELECT COUNT(*) FROM books WHERE available = TRUE),
+       (SELECT COUNT(*) FROM authors),
+       (SELECT COUNT(*) FROM genres),
+       (SELECT COUNT(*) FROM series),
+       (SELECT MAX(finished_at) FROM scan_runs WHERE status = 'COMPLETED'),
+       CURRENT_TIMESTAMP;
@@ -0,0 +1,2 @@
+-- Key of the book's cover in the content-addressed cover cache (SHA-256 of the image)
+ALTER TABLE books ADD COLUMN cover VARCHAR(64);
@@ -0,0 +1,54 @@
+-- Annotations move out of the books rows into their own table: the keyset listing queries no
+-- longer read them, and a page loads the annotations of its own books only.
+-- Runs outside a transaction (see the .conf file) so that every batch commits on its own;
+-- each step is idempotent, so a failed run can be repaired and repeated.
+CREATE TABLE IF NOT EXISTS book_annotations (
+    book_id BIGINT PRIMARY KEY REFERENCES books(id) ON DELETE CASCADE,
+    annotation TEXT NOT NULL
+);
+
+-- lz4 compresses and decompresses faster than the default pglz; it needs PostgreSQL 14+ built with lz4
+DO $$
+BEGIN
+    ALTER TABLE book_annotations ALTER COLUMN annotation SET COMPRESSION lz4;
+EXCEPTION WHEN OTHERS THEN
+    RAISE NOTICE 'lz4 is not available, annotations keep the default compression: %', SQLERRM;
+END
+$$;
+
+-- Copy in id ranges of 10000 books, one transaction each
+DO $$
+DECLARE
+    batch_start BIGINT;
+    max_id BIGINT;
+BEGIN
+    SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), -1) INTO batch_start, max_id FROM books;
+    WHILE batch_start <= max_id LOOP
+        INSERT INTO book_annotations (book_id, annotation)
+        SELECT id, annotation FROM books
+        WHERE id >= batch_start AND id < batch_start + 10000 AND annotation IS NOT NULL AND annotation <> ''
+        ON CONFLICT (book_id) DO NOTHING;
+        COMMIT;
+        batch_start := batch_start + 10000;
+    END LOOP;
+END
+$$;
+
+-- The search document reads the annotation from its new table
+CREATE OR REPLACE FUNCTION book_search_vector(p_book_id BIGINT) RETURNS tsvector
+LANGUAGE sql STABLE AS $$
+    SELECT setweight(to_tsvector('russian', coalesce(b.title, '')), 'A')
+        || setweight(to_tsvector('russian', coalesce((
+               SELECT string_agg(a.full_name, ' ')
+               FROM book_authors ba JOIN authors a ON a.id = ba.author_id
+               WHERE ba.book_id = b.id), '')), 'B')
+        || setweight(to_tsvector('russian', coalesce(s.name, '')), 'C')
+        || setweight(to_tsvector('russian', coalesce((
+               SELECT ann.annotation FROM book_annotations ann WHERE ann.book_id = b.id), '')), 'D')
+    FROM books b LEFT JOIN series s ON s.id = b.series_id
+    WHERE b.id = p_book_id
+$$;
+
+-- Dropping the column does not rewrite the table: rows shrink as they are rewritten,
+-- or at once with VACUUM FULL books (which locks the table while it runs)
+ALTER TABLE books DROP COLUMN IF EXISTS annotation;
@@ -0,0 +1,6 @@
+-- Alphabet groups list the rows whose upper-case sort key starts with a prefix. In byte order ("C")
+-- all keys with one prefix form a single range, so each group page is a short index range scan
+-- from the prefix (or the cursor) to the end of the group.
+CREATE INDEX idx_book_title_upper_id ON books ((UPPER(title_sort)) COLLATE "C", id);
+CREATE INDEX idx_author_sort_upper_id ON authors ((UPPER(full_name_sort)) COLLATE "C", id);
+CREATE INDEX idx_series_sort_upper_id ON series ((UPPER(name_sort)) COLLATE "C", id);
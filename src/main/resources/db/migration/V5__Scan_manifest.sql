@@ -0,0 +1,12 @@
+-- Scan manifest: size/mtime of every scanned file and archive, so unchanged ones are skipped
+CREATE TABLE scan_manifest (
+    path VARCHAR(1000) PRIMARY KEY,
+    file_size BIGINT NOT NULL,
+    last_modified BIGINT NOT NULL,
+    entry_count INTEGER,
+    entry_crc BIGINT,
+    scan_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Prefix lookups of all books inside one archive (path LIKE 'archive.zip/%')
+CREATE INDEX idx_book_path_prefix ON books(path varchar_pattern_ops);
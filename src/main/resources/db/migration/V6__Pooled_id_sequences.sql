@@ -0,0 +1,5 @@
+-- Scanner-written tables take ids from pooled sequences (allocationSize = 50 in the entities),
+-- so Hibernate can batch inserts instead of doing one IDENTITY round trip per row
+ALTER SEQUENCE books_id_seq INCREMENT BY 50;
+ALTER SEQUENCE authors_id_seq INCREMENT BY 50;
+ALTER SEQUENCE series_id_seq INCREMENT BY 50;
@@ -0,0 +1,22 @@
+-- Scan journal: one row per scan run, checkpoints of completed directories and archive positions
+CREATE TABLE scan_runs (
+    id BIGSERIAL PRIMARY KEY,
+    root_path VARCHAR(1000) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    checkpoint_at TIMESTAMP
+);
+
+CREATE INDEX idx_scan_run_status ON scan_runs(status);
+
+CREATE TABLE scan_checkpoints (
+    id BIGSERIAL PRIMARY KEY,
+    run_id BIGINT NOT NULL,
+    path VARCHAR(1000) NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    entry_position INTEGER,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT uk_scan_checkpoint_run_path UNIQUE (run_id, path),
+    FOREIGN KEY (run_id) REFERENCES scan_runs(id) ON DELETE CASCADE
+);
@@ -0,0 +1,2 @@
+-- Content hash lookups and the post-scan duplicate grouping
+CREATE INDEX idx_book_md5 ON books(md5);
@@ -0,0 +1,13 @@
+-- Keyset pagination of the OPDS feeds: each feed is ordered by an indexed (sort key, id) pair.
+-- Rows without a sort key would never show up in a keyset page, so fill them in first.
+UPDATE authors SET full_name_sort = full_name WHERE full_name_sort IS NULL;
+UPDATE series SET name_sort = name WHERE name_sort IS NULL;
+
+CREATE INDEX idx_book_reg_date_id ON books(register_date, id);
+CREATE INDEX idx_book_series ON books(series_id, series_number);
+CREATE INDEX idx_author_sort_id ON authors(full_name_sort, id);
+CREATE INDEX idx_series_sort_id ON series(name_sort, id);
+
+-- The primary keys lead with book_id; the feeds look books up by author and by genre
+CREATE INDEX idx_book_authors_author ON book_authors(author_id, book_id);
+CREATE INDEX idx_book_genres_genre ON book_genres(genre_id, book_id);
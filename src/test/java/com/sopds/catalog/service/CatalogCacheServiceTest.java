@@ -0,0 +1,97 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.CacheConfiguration;
+import com.sopds.catalog.service.catalog.CatalogChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogCacheServiceTest {
+
+    private CaffeineCacheManager cacheManager;
+
+    private CatalogGenerationService generationService;
+
+    private CatalogCacheService cacheService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(CatalogCacheService.BOOKS, CatalogCacheService.AUTHORS,
+                CatalogCacheService.SERIES);
+        generationService = new CatalogGenerationService();
+        cacheService = new CatalogCacheService(cacheManager, generationService, new CacheConfiguration());
+    }
+
+    @Test
+    void evictsOnlyTheChangedOwners() {
+        Cache authors = cacheManager.getCache(CatalogCacheService.AUTHORS);
+        authors.put(cacheService.key(CatalogCacheService.AUTHORS, 1), "author 1");
+        authors.put(cacheService.pageKey(CatalogCacheService.AUTHORS, 1, null), "page 1");
+        authors.put(cacheService.pageKey(CatalogCacheService.AUTHORS, 1, "next"), "page 2");
+        authors.put(cacheService.pageKey(CatalogCacheService.AUTHORS, 2, null), "other author");
+
+        change(new CatalogChangeEvent(Set.of(), Set.of(1L), Set.of()));
+
+        assertThat(authors.get(cacheService.key(CatalogCacheService.AUTHORS, 1))).isNull();
+        assertThat(authors.get(cacheService.pageKey(CatalogCacheService.AUTHORS, 1, null))).isNull();
+        assertThat(authors.get(cacheService.pageKey(CatalogCacheService.AUTHORS, 1, "next"))).isNull();
+        assertThat(authors.get(cacheService.pageKey(CatalogCacheService.AUTHORS, 2, null)).get())
+                .isEqualTo("other author");
+    }
+
+    @Test
+    void ignoresAPutFromAReadThatStartedBeforeTheEviction() {
+        Cache books = cacheManager.getCache(CatalogCacheService.BOOKS);
+        String staleKey = cacheService.key(CatalogCacheService.BOOKS, 7);
+
+        change(new CatalogChangeEvent(Set.of(7L), Set.of(), Set.of()));
+        books.put(staleKey, "before the commit");
+
+        assertThat(books.get(cacheService.key(CatalogCacheService.BOOKS, 7))).isNull();
+    }
+
+    @Test
+    void movesToANewVersionOnEveryChange() {
+        String first = cacheService.key(CatalogCacheService.SERIES, 3);
+        CatalogChangeEvent change = new CatalogChangeEvent(Set.of(), Set.of(), Set.of(3L));
+
+        change(change);
+        String second = cacheService.key(CatalogCacheService.SERIES, 3);
+        change(change);
+        String third = cacheService.key(CatalogCacheService.SERIES, 3);
+
+        assertThat(Set.of(first, second, third)).hasSize(3);
+    }
+
+    @Test
+    void ownersMissingFromTheVersionTableTakeTheCurrentGeneration() {
+        CacheConfiguration config = new CacheConfiguration();
+        config.setVersions("maximumSize=0");
+        cacheService = new CatalogCacheService(cacheManager, generationService, config);
+        Cache books = cacheManager.getCache(CatalogCacheService.BOOKS);
+        String staleKey = cacheService.key(CatalogCacheService.BOOKS, 7);
+
+        assertThat(staleKey).isEqualTo("7@" + generationService.current().number());
+
+        change(new CatalogChangeEvent(Set.of(7L), Set.of(), Set.of()));
+        books.put(staleKey, "before the commit");
+
+        assertThat(cacheService.key(CatalogCacheService.BOOKS, 7))
+                .isEqualTo("7@" + generationService.current().number())
+                .isNotEqualTo(staleKey);
+        assertThat(books.get(cacheService.key(CatalogCacheService.BOOKS, 7))).isNull();
+    }
+
+    /**
+     * Delivers a change in listener order: the generation advances before the caches are evicted
+     */
+    private void change(CatalogChangeEvent event) {
+        generationService.catalogChanged(event);
+        cacheService.catalogChanged(event);
+    }
+}
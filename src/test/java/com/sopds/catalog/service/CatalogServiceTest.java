@@ -0,0 +1,252 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.OpdsConfiguration;
+import com.sopds.catalog.entity.Author;
+import com.sopds.catalog.entity.Book;
+import com.sopds.catalog.entity.BookAnnotation;
+import com.sopds.catalog.entity.Genre;
+import com.sopds.catalog.entity.Series;
+import com.sopds.catalog.repository.AuthorRepository.ListedAuthorView;
+import com.sopds.catalog.service.catalog.BookCursorPage;
+import com.sopds.catalog.service.catalog.BookItem;
+import com.sopds.catalog.service.catalog.CatalogViewMapperImpl;
+import com.sopds.catalog.service.catalog.CursorPage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catalog pages on a real PostgreSQL with the Flyway schema. Skipped where Docker is unavailable.
+ * <p>
+ * Every page of books costs {@value #STATEMENTS_PER_PAGE} statements however many books it holds:
+ * the page query with its series, then the authors, genres and annotations of the page.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({CatalogService.class, CatalogViewMapperImpl.class, OpdsConfiguration.class})
+class CatalogServiceTest {
+
+    private static final int STATEMENTS_PER_PAGE = 4;
+
+    private static final int BOOKS = 12;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private OpdsConfiguration config;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void smallPages() {
+        config.setPageSize(5);
+    }
+
+    @Test
+    void annotationsLiveOutsideTheBooksRows() {
+        Integer columns = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.columns
+                WHERE table_name = 'books' AND column_name = 'annotation'
+                """, Integer.class);
+
+        assertThat(columns).isZero();
+    }
+
+    @Test
+    void pagesCarryTheAnnotationsOfTheirBooks() {
+        List<Long> annotated = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Book book = book("Книга " + i, "annotated-" + i + ".fb2");
+            entityManager.persist(BookAnnotation.builder().book(book).annotation("Аннотация " + i).build());
+            annotated.add(book.getId());
+        }
+        long plain = book("Без аннотации", "plain.fb2").getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        List<BookItem> items = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookCursorPage page = catalogService.books(cursor);
+            items.addAll(page.getBooks());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(items).filteredOn(item -> annotated.contains(item.id()))
+                .hasSize(annotated.size())
+                .allSatisfy(item -> assertThat(item.annotation()).isEqualTo(
+                        "Аннотация " + annotated.indexOf(item.id())));
+        assertThat(items).filteredOn(item -> item.id() == plain)
+                .singleElement()
+                .satisfies(item -> assertThat(item.annotation()).isNull());
+    }
+
+    @Test
+    void bookDetailsCarryTheAnnotation() {
+        Book book = book("Одна книга", "single.fb2");
+        entityManager.persist(BookAnnotation.builder().book(book).annotation("Подробно").build());
+        entityManager.flush();
+        entityManager.clear();
+
+        BookCursorPage page = catalogService.book(book.getId());
+
+        assertThat(page.getBooks()).singleElement()
+                .satisfies(item -> assertThat(item.annotation()).isEqualTo("Подробно"));
+    }
+
+    @Test
+    void authorSeriesAndGenrePagesRunAConstantNumberOfStatements() {
+        Author author = entityManager.persist(Author.builder()
+                .fullName("Иван Петров").fullNameSort("Петров Иван").build());
+        Author coauthor = entityManager.persist(Author.builder()
+                .fullName("Анна Сидорова").fullNameSort("Сидорова Анна").build());
+        Series series = entityManager.persist(Series.builder().name("Цикл").nameSort("Цикл").build());
+        Genre genre = entityManager.persist(Genre.builder().code("test_sf").nameRu("Фантастика").build());
+        Genre other = entityManager.persist(Genre.builder().code("test_adv").nameRu("Приключения").build());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = entityManager.persist(Book.builder()
+                    .title("Том " + i)
+                    .titleSort("Том " + i)
+                    .path("series-" + i + ".fb2")
+                    .filename("series-" + i + ".fb2")
+                    .format("FB2")
+                    .series(series)
+                    .seriesNumber(i + 1)
+                    .authors(new HashSet<>(List.of(author, coauthor)))
+                    .genres(new HashSet<>(List.of(genre, other)))
+                    .build());
+            entityManager.persist(BookAnnotation.builder().book(book).annotation("Аннотация " + i).build());
+            ids.add(book.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertPagesOf(cursor -> catalogService.authorBooks(author.getId(), cursor), ids);
+        assertPagesOf(cursor -> catalogService.seriesBooks(series.getId(), cursor), ids);
+        assertPagesOf(cursor -> catalogService.genreBooks(genre.getId(), cursor), ids);
+    }
+
+    @Test
+    void alphabetGroupsPageThroughTheirPrefixOnly() {
+        config.setPageSize(2);
+        List<Long> group = List.of(
+                book("Ябеда", "jabeda.fb2").getId(),
+                book("ЯБЛОКО", "jabloko.fb2").getId(),
+                book("яблоня", "jablonja.fb2").getId());
+        book("Ягода", "jagoda.fb2");
+        book("Я был", "ja-byl.fb2");
+        book("Арбуз", "arbuz.fb2");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> found = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookCursorPage page = catalogService.titlePrefixBooks("ЯБ", cursor);
+            page.getBooks().stream().map(BookItem::id).forEach(found::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(found).containsExactlyInAnyOrderElementsOf(group);
+    }
+
+    @Test
+    void authorsAreListedByNamePrefixOrSubstring() {
+        config.setPageSize(1);
+        long ivanov = author("Иван Иванов", "Иванов Иван");
+        long ivanova = author("Анна Иванова", "ИВАНОВА Анна");
+        author("Пётр Ивлев", "Ивлев Пётр");
+        long divanov = author("Олег Диванов", "Диванов Олег");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(authorIds("ива", true)).containsExactlyInAnyOrder(ivanov, ivanova);
+        assertThat(authorIds("ванов", false)).containsExactlyInAnyOrder(ivanov, ivanova, divanov);
+    }
+
+    private List<Long> authorIds(String name, boolean startsWith) {
+        List<Long> found = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ListedAuthorView> page = catalogService.authorsByName(name, startsWith, cursor);
+            page.getItems().stream().map(ListedAuthorView::getId).forEach(found::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return found;
+    }
+
+    private long author(String fullName, String fullNameSort) {
+        return entityManager.persist(Author.builder().fullName(fullName).fullNameSort(fullNameSort).build()).getId();
+    }
+
+    /**
+     * Walks every page of a listing, counting the statements of each, and checks that together
+     * the pages hold each expected book once with its associations attached
+     */
+    private void assertPagesOf(Function<String, BookCursorPage> listing, List<Long> expected) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> found = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            statistics.clear();
+            BookCursorPage page = listing.apply(cursor);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS_PER_PAGE);
+            assertThat(page.getBooks()).allSatisfy(item -> {
+                assertThat(item.authors()).hasSize(2);
+                assertThat(item.genres()).hasSize(2);
+                assertThat(item.series()).isNotNull();
+                assertThat(item.annotation()).isNotNull();
+            });
+            page.getBooks().stream().map(BookItem::id).forEach(found::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(found).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    private Book book(String title, String path) {
+        return entityManager.persist(Book.builder()
+                .title(title)
+                .titleSort(title)
+                .path(path)
+                .filename(path)
+                .format("FB2")
+                .build());
+    }
+}
@@ -0,0 +1,106 @@
+package com.sopds.catalog.service;
+
+import com.sopds.catalog.config.OpdsConfiguration;
+import com.sopds.catalog.entity.Book;
+import com.sopds.catalog.service.catalog.BookCursorPage;
+import com.sopds.catalog.service.catalog.BookItem;
+import com.sopds.catalog.service.catalog.CatalogViewMapperImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ranked search on a real PostgreSQL with the Flyway schema, paged with keyset cursors.
+ * Skipped where Docker is unavailable.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({SearchService.class, CatalogService.class, CatalogViewMapperImpl.class, OpdsConfiguration.class})
+class SearchServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private OpdsConfiguration config;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void smallPages() {
+        config.setPageSize(2);
+    }
+
+    @Test
+    void pagesThroughAllHitsWithoutSkipsOrRepeats() {
+        List<Long> expected = new ArrayList<>();
+        // Identical titles rank exactly the same, so page boundaries fall inside ties
+        for (int i = 0; i < 5; i++) {
+            expected.add(book("Путь дракона", "tie-" + i + ".fb2"));
+        }
+        expected.add(book("Дракон и рыцарь", "knight.fb2"));
+        expected.add(book("Сон дракона", "dream.fb2"));
+        book("Мастер и Маргарита", "master.fb2");
+        entityManager.flush();
+        searchService.indexBooks(expected);
+
+        assertThat(searchService.isFullTextAvailable()).isTrue();
+
+        List<Long> found = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            BookCursorPage page = searchService.searchBooks("дракон", cursor);
+            assertThat(page.getBooks()).hasSizeLessThanOrEqualTo(2);
+            page.getBooks().stream().map(BookItem::id).forEach(found::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(pages).isGreaterThanOrEqualTo(3);
+        assertThat(found).doesNotHaveDuplicates();
+        assertThat(new HashSet<>(found)).isEqualTo(Set.copyOf(expected));
+    }
+
+    @Test
+    void findsTitlesWithTypos() {
+        long id = book("Путь дракона", "typo.fb2");
+        entityManager.flush();
+        searchService.indexBooks(List.of(id));
+
+        BookCursorPage page = searchService.searchBooks("путь дркона", null);
+
+        assertThat(page.getBooks()).extracting(BookItem::id).contains(id);
+    }
+
+    private long book(String title, String path) {
+        return entityManager.persistAndGetId(Book.builder()
+                .title(title)
+                .titleSort(title)
+                .path(path)
+                .filename(path)
+                .format("FB2")
+                .build(), Long.class);
+    }
+}